@@ -0,0 +1,165 @@
+package com.example.sprs.config;
+
+import com.example.sprs.model.Notification;
+import com.example.sprs.model.Request;
+import com.example.sprs.model.User;
+import com.example.sprs.model.UserRef;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Converts documents written before requests and notifications stopped using @DBRef: the
+// student / recipient / sender / request references become plain ids plus embedded snapshots.
+// Runs in the background after startup and is a no-op once nothing is left to convert.
+@Component
+public class DbRefMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(DbRefMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        taskScheduler.schedule(this::migrate, Instant.now());
+    }
+
+    public void migrate() {
+        try {
+            long requests = migrateRequests();
+            long notifications = migrateNotifications();
+            if (requests > 0 || notifications > 0) {
+                logger.info("Converted {} requests and {} notifications from DBRefs", requests, notifications);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("DBRef migration failed: {}", e.getMessage());
+        }
+    }
+
+    private long migrateRequests() {
+        Document legacy = new Document("student", new Document("$exists", true));
+        Document projection = new Document("student", 1);
+
+        long converted = 0;
+        List<Document> batch;
+        while (!(batch = findBatch(Request.class, legacy, projection)).isEmpty()) {
+            Map<String, User> users = loadUsers(batch, "student");
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Request.class);
+            for (Document document : batch) {
+                String studentId = refId(document.get("student"));
+                Update update = new Update().set("studentId", studentId).unset("student");
+                User student = users.get(studentId);
+                if (student != null) {
+                    update.set("studentInfo", UserRef.of(student));
+                }
+                bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))), update);
+            }
+            bulk.execute();
+            converted += batch.size();
+        }
+        return converted;
+    }
+
+    private long migrateNotifications() {
+        Document legacy = new Document("$or", List.of(
+                new Document("recipient", new Document("$exists", true)),
+                new Document("sender", new Document("$exists", true)),
+                new Document("request", new Document("$exists", true))));
+        Document projection = new Document("recipient", 1).append("sender", 1).append("request", 1);
+
+        long converted = 0;
+        List<Document> batch;
+        while (!(batch = findBatch(Notification.class, legacy, projection)).isEmpty()) {
+            Map<String, User> senders = loadUsers(batch, "sender");
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+            for (Document document : batch) {
+                Update update = new Update().unset("recipient").unset("sender").unset("request");
+
+                String recipientId = refId(document.get("recipient"));
+                if (recipientId != null) {
+                    update.set("recipientId", recipientId);
+                }
+                String senderId = refId(document.get("sender"));
+                if (senderId != null) {
+                    update.set("senderId", senderId);
+                    User sender = senders.get(senderId);
+                    if (sender != null) {
+                        update.set("senderInfo", UserRef.of(sender));
+                    }
+                }
+                String requestId = refId(document.get("request"));
+                if (requestId != null) {
+                    update.set("requestId", requestId);
+                }
+                bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))), update);
+            }
+            bulk.execute();
+            converted += batch.size();
+        }
+        return converted;
+    }
+
+    // Converted documents no longer match the filter, so each batch starts from the beginning
+    private List<Document> findBatch(Class<?> entity, Document filter, Document projection) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entity))
+                .find(filter)
+                .projection(projection)
+                .limit(BATCH_SIZE)
+                .into(new ArrayList<>());
+    }
+
+    private Map<String, User> loadUsers(List<Document> batch, String field) {
+        Set<String> ids = new HashSet<>();
+        for (Document document : batch) {
+            String id = refId(document.get(field));
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+
+        Map<String, User> users = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (User user : mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), User.class)) {
+                users.put(user.getId(), user);
+            }
+        }
+        return users;
+    }
+
+    // A stored DBRef is read back either as a DBRef or as a plain {$ref, $id} document
+    private static String refId(Object reference) {
+        Object id = null;
+        if (reference instanceof DBRef dbRef) {
+            id = dbRef.getId();
+        } else if (reference instanceof Document document) {
+            id = document.get("$id");
+        }
+        return id == null ? null : id.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.sprs.config;
+
+import com.example.sprs.model.Notification;
+import com.example.sprs.model.Request;
+import com.example.sprs.model.RevokedToken;
+import com.example.sprs.model.UnreadChange;
+import com.example.sprs.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Creates the indexes declared on the entities (auto index creation is off). Runs on every
+// startup before the application reports ready, so no traffic is served while they are missing;
+// ensureIndex is a no-op for indexes that already exist.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MongoIndexInitializer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private static final List<Class<?>> INDEXED_ENTITIES =
+            List.of(User.class, Request.class, Notification.class, RevokedToken.class, UnreadChange.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            ensureIndexes();
+        } catch (RuntimeException e) {
+            logger.error("Failed to create MongoDB indexes: {}", e.getMessage());
+        }
+    }
+
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity);
+            resolver.resolveIndexFor(entity).forEach(indexOps::ensureIndex);
+        }
+        logger.info("Ensured indexes for {} collections", INDEXED_ENTITIES.size());
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.sprs.config;
+
+import com.example.sprs.model.Notification;
+import com.example.sprs.model.Request;
+import com.example.sprs.model.UnreadChange;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+// Explains every query shape the repositories and services issue against the indexes
+// MongoIndexInitializer created, reporting any that would scan the whole collection or sort in
+// memory. Mode: off, warn (in the background) or fail (abort startup).
+@Component
+public class QueryPlanVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanVerifier.class);
+
+    public enum Mode { OFF, WARN, FAIL }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${mongo.query-plan-check:WARN}")
+    private Mode mode;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        if (mode == Mode.FAIL) {
+            List<String> problems = verify();
+            if (!problems.isEmpty()) {
+                throw new IllegalStateException("Unindexed query shapes: " + String.join("; ", problems));
+            }
+            return;
+        }
+
+        taskScheduler.schedule(() -> {
+            try {
+                verify().forEach(problem -> logger.warn("Unindexed query shape: {}", problem));
+            } catch (RuntimeException e) {
+                logger.warn("Query plan verification failed: {}", e.getMessage());
+            }
+        }, Instant.now());
+    }
+
+    public List<String> verify() {
+        List<String> problems = new ArrayList<>();
+        for (QueryShape shape : queryShapes()) {
+            Document explained = mongoTemplate.getDb().runCommand(
+                    new Document("explain", shape.command).append("verbosity", "queryPlanner"));
+            Document winningPlan = explained.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+            List<String> stages = new ArrayList<>();
+            collectUnindexedStages(winningPlan, stages);
+            if (!stages.isEmpty()) {
+                problems.add(shape.name + " uses " + String.join(", ", stages));
+            } else {
+                logger.debug("Query shape {} is served by an index", shape.name);
+            }
+        }
+        return problems;
+    }
+
+    // COLLSCAN anywhere in the winning plan, or a blocking SORT stage
+    private static void collectUnindexedStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            Object stage = document.get("stage");
+            if ("COLLSCAN".equals(stage) || "SORT".equals(stage)) {
+                stages.add((String) stage);
+            }
+            for (Map.Entry<String, Object> entry : document.entrySet()) {
+                collectUnindexedStages(entry.getValue(), stages);
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) {
+                collectUnindexedStages(item, stages);
+            }
+        }
+    }
+
+    // Representative values only; the planner picks indexes by shape, not by the values
+    private List<QueryShape> queryShapes() {
+        String requests = mongoTemplate.getCollectionName(Request.class);
+        String notifications = mongoTemplate.getCollectionName(Notification.class);
+        String user = new ObjectId().toHexString();
+        Date now = new Date();
+        Document newestFirst = new Document("createdAt", -1).append("_id", -1);
+
+        List<QueryShape> shapes = new ArrayList<>();
+        shapes.add(QueryShape.find("requests by status", requests,
+                new Document("status", "PENDING"), newestFirst));
+        shapes.add(QueryShape.find("requests by status after cursor", requests,
+                new Document("status", "PENDING").append("$or", List.of(
+                        new Document("createdAt", new Document("$lt", now)),
+                        new Document("createdAt", now).append("_id", new Document("$lt", new ObjectId())))),
+                newestFirst));
+        shapes.add(QueryShape.find("requests by student", requests,
+                new Document("studentId", user), newestFirst));
+        shapes.add(QueryShape.find("requests by student and status", requests,
+                new Document("studentId", user).append("status", "PENDING"), newestFirst));
+        shapes.add(QueryShape.find("requests by employee reviewer", requests,
+                new Document("employeeReview.reviewedBy", "reviewer"), newestFirst));
+        shapes.add(QueryShape.find("requests by admin reviewer", requests,
+                new Document("adminReview.reviewedBy", "reviewer"), null));
+        shapes.add(QueryShape.find("requests by type", requests,
+                new Document("requestType", "OUTING"), null));
+        shapes.add(QueryShape.find("pending outbox events", requests,
+                new Document("pendingEvents", new Document("$elemMatch",
+                        new Document("createdAt", new Document("$lt", now))
+                                .append("attempts", new Document("$not", new Document("$gte", 5))))), null));
+        shapes.add(QueryShape.count("request count by status", requests,
+                new Document("status", "PENDING")));
+        shapes.add(QueryShape.count("request count by student and status", requests,
+                new Document("studentId", user).append("status", "PENDING")));
+
+        Document newestNotificationFirst = new Document("createdAt", -1);
+        Document broadcasts = new Document("audienceRole", "EMPLOYEE")
+                .append("createdAt", new Document("$gt", now));
+        shapes.add(QueryShape.find("notifications visible to user", notifications,
+                new Document("$or", List.of(new Document("recipientId", user), broadcasts)),
+                newestNotificationFirst));
+        shapes.add(QueryShape.find("unread notifications for user", notifications,
+                new Document("$or", List.of(new Document("recipientId", user).append("isRead", false), broadcasts)),
+                newestNotificationFirst));
+        shapes.add(QueryShape.count("unread notification count", notifications,
+                new Document("$or", List.of(new Document("recipientId", user).append("isRead", false), broadcasts))));
+        shapes.add(QueryShape.find("old read notifications", notifications,
+                new Document("recipientId", user).append("isRead", true)
+                        .append("createdAt", new Document("$lt", now)), null));
+
+        shapes.add(QueryShape.find("recent unread count changes", mongoTemplate.getCollectionName(UnreadChange.class),
+                new Document("at", new Document("$gt", now)).append("origin", new Document("$ne", user)),
+                new Document("at", 1)));
+        return shapes;
+    }
+
+    private static final class QueryShape {
+        private final String name;
+        private final Document command;
+
+        private QueryShape(String name, Document command) {
+            this.name = name;
+            this.command = command;
+        }
+
+        static QueryShape find(String name, String collection, Document filter, Document sort) {
+            Document command = new Document("find", collection).append("filter", filter);
+            if (sort != null) {
+                command.append("sort", sort);
+            }
+            return new QueryShape(name, command);
+        }
+
+        static QueryShape count(String name, String collection, Document filter) {
+            return new QueryShape(name, new Document("count", collection).append("query", filter));
+        }
+    }
+}
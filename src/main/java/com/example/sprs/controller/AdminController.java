@@ -1,21 +1,35 @@
 package com.example.sprs.controller;
 
 import com.example.sprs.dto.ApiResponse;
+import com.example.sprs.dto.BatchPrintRequestDto;
+import com.example.sprs.dto.CursorPage;
+import com.example.sprs.dto.RequestCounts;
+import com.example.sprs.dto.RequestSummary;
 import com.example.sprs.model.Request;
 import com.example.sprs.model.User;
 import com.example.sprs.model.Notification;
+import com.example.sprs.security.CurrentUser;
+import com.example.sprs.service.BatchPrintService;
+import com.example.sprs.service.RequestConflictException;
+import com.example.sprs.service.RequestCounters;
 import com.example.sprs.service.RequestService;
+import com.example.sprs.service.DashboardAssembler;
+import com.example.sprs.service.DashboardService;
 import com.example.sprs.service.NotificationService;
 import com.example.sprs.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/admin")
@@ -28,20 +42,27 @@ public class AdminController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private DashboardAssembler dashboardAssembler;
+
     @Autowired
     private UserService userService;
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    @Autowired
+    private BatchPrintService batchPrintService;
+
+    @Autowired
+    private RequestCounters requestCounters;
 
     @GetMapping("/requests/accepted")
-    public ResponseEntity<?> getAcceptedRequests() {
+    public ResponseEntity<?> getAcceptedRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            List<Request> acceptedRequests = requestService.getAcceptedRequestsForAdmin();
+            CursorPage<RequestSummary> acceptedRequests = requestService.getAcceptedRequestsForAdmin(cursor, size);
             return ResponseEntity.ok(new ApiResponse<>(true, "Accepted requests retrieved successfully", acceptedRequests));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -52,7 +73,7 @@ public class AdminController {
     @GetMapping("/requests/{id}")
     public ResponseEntity<?> getRequest(@PathVariable String id) {
         try {
-            Optional<Request> requestOpt = requestService.findById(id);
+            Optional<Request> requestOpt = requestService.findByIdWithLetter(id);
             if (requestOpt.isPresent()) {
                 return ResponseEntity.ok(new ApiResponse<>(true, "Request retrieved successfully", requestOpt.get()));
             } else {
@@ -66,21 +87,42 @@ public class AdminController {
     }
 
     @PostMapping("/requests/{id}/print")
-    public ResponseEntity<?> markRequestAsPrinted(@PathVariable String id) {
+    public ResponseEntity<?> markRequestAsPrinted(@CurrentUser User currentUser, @PathVariable String id) {
         try {
-            User currentUser = getCurrentUser();
             Request completedRequest = requestService.markRequestAsPrinted(id, currentUser.getId());
             return ResponseEntity.ok(new ApiResponse<>(true, "Request marked as printed and completed", completedRequest));
+        } catch (RequestConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, "Error marking request as printed: " + e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse<>(false, "Error marking request as printed: " + e.getMessage(), null));
         }
     }
 
+    // Streams the letters as one text document (a page per letter), then completes the printed requests
+    @PostMapping("/requests/print")
+    public ResponseEntity<?> batchPrint(@CurrentUser User currentUser, @RequestBody BatchPrintRequestDto selection) {
+        try {
+            batchPrintService.validate(selection);
+            String adminId = currentUser.getId();
+            StreamingResponseBody body = out -> batchPrintService.printAndComplete(selection, adminId, out);
+            return ResponseEntity.ok()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"letters.txt\"")
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, "Error printing requests: " + e.getMessage(), null));
+        }
+    }
+
     @GetMapping("/requests/completed")
-    public ResponseEntity<?> getCompletedRequests() {
+    public ResponseEntity<?> getCompletedRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            List<Request> completedRequests = requestService.getCompletedRequests();
+            CursorPage<RequestSummary> completedRequests = requestService.getCompletedRequests(cursor, size);
             return ResponseEntity.ok(new ApiResponse<>(true, "Completed requests retrieved successfully", completedRequests));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -88,6 +130,17 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        try {
+            RequestCounts counts = requestCounters.getCounts();
+            return ResponseEntity.ok(new ApiResponse<>(true, "Request statistics retrieved", counts));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, "Error retrieving statistics: " + e.getMessage(), null));
+        }
+    }
+
     @GetMapping("/users")
     public ResponseEntity<?> getUsers(@RequestParam(required = false) User.Role role) {
         try {
@@ -115,12 +168,11 @@ public class AdminController {
 
     @GetMapping("/notifications")
     public ResponseEntity<?> getNotifications(
+            @CurrentUser User currentUser,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "false") boolean unreadOnly) {
         try {
-            User currentUser = getCurrentUser();
-
             Page<Notification> notifications = unreadOnly
                     ? notificationService.getUnreadNotifications(currentUser, page, size)
                     : notificationService.getUserNotifications(currentUser, page, size);
@@ -133,10 +185,9 @@ public class AdminController {
     }
 
     @PutMapping("/notifications/{id}/read")
-    public ResponseEntity<?> markNotificationAsRead(@PathVariable String id) {
+    public ResponseEntity<?> markNotificationAsRead(@CurrentUser User currentUser, @PathVariable String id) {
         try {
-            User currentUser = getCurrentUser();
-            Notification notification = notificationService.markAsRead(id, currentUser.getId());
+            Notification notification = notificationService.markAsRead(id, currentUser);
             return ResponseEntity.ok(new ApiResponse<>(true, "Notification marked as read", notification));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -145,19 +196,23 @@ public class AdminController {
     }
 
     @GetMapping("/dashboard")
-    public ResponseEntity<?> getDashboard() {
+    public ResponseEntity<?> getDashboard(@CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser();
-
-            List<Request> acceptedRequests = requestService.getAcceptedRequestsForAdmin();
-            Page<Notification> notifications = notificationService.getUserNotifications(currentUser, 0, 5);
-            long unreadCount = notificationService.getUnreadCount(currentUser);
+            DashboardAssembler.Assembly assembly = dashboardAssembler.begin();
+            CompletableFuture<DashboardService.RequestStats> acceptedSection =
+                    assembly.critical(() -> dashboardService.getRequestStatsByStatus(Request.Status.ACCEPTED, 10));
+            CompletableFuture<DashboardService.NotificationStats> notificationSection =
+                    assembly.optional("notifications", () -> dashboardService.getNotificationStats(currentUser, 5),
+                            DashboardService.NotificationStats.EMPTY);
+            DashboardService.RequestStats accepted = assembly.join(acceptedSection);
+            DashboardService.NotificationStats notifications = assembly.join(notificationSection);
 
             AdminDashboardData dashboard = new AdminDashboardData();
-            dashboard.setAcceptedRequests(acceptedRequests.subList(0, Math.min(10, acceptedRequests.size())));
-            dashboard.setRecentNotifications(notifications.getContent());
-            dashboard.setUnreadNotifications(unreadCount);
-            dashboard.setTotalAcceptedRequests(acceptedRequests.size());
+            dashboard.setAcceptedRequests(accepted.getRecent());
+            dashboard.setRecentNotifications(notifications.getRecent());
+            dashboard.setUnreadNotifications(notifications.getUnreadCount());
+            dashboard.setUnavailableSections(assembly.getUnavailable());
+            dashboard.setTotalAcceptedRequests(accepted.getTotal());
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Dashboard data retrieved", dashboard));
         } catch (Exception e) {
@@ -168,16 +223,17 @@ public class AdminController {
 
     // Inner class for admin dashboard data
     public static class AdminDashboardData {
-        private List<Request> acceptedRequests;
+        private List<RequestSummary> acceptedRequests;
         private List<Notification> recentNotifications;
         private long unreadNotifications;
-        private int totalAcceptedRequests;
+        private long totalAcceptedRequests;
+        private List<String> unavailableSections;
 
-        public List<Request> getAcceptedRequests() {
+        public List<RequestSummary> getAcceptedRequests() {
             return acceptedRequests;
         }
 
-        public void setAcceptedRequests(List<Request> acceptedRequests) {
+        public void setAcceptedRequests(List<RequestSummary> acceptedRequests) {
             this.acceptedRequests = acceptedRequests;
         }
 
@@ -197,12 +253,20 @@ public class AdminController {
             this.unreadNotifications = unreadNotifications;
         }
 
-        public int getTotalAcceptedRequests() {
+        public long getTotalAcceptedRequests() {
             return totalAcceptedRequests;
         }
 
-        public void setTotalAcceptedRequests(int totalAcceptedRequests) {
+        public void setTotalAcceptedRequests(long totalAcceptedRequests) {
             this.totalAcceptedRequests = totalAcceptedRequests;
         }
+
+        public List<String> getUnavailableSections() {
+            return unavailableSections;
+        }
+
+        public void setUnavailableSections(List<String> unavailableSections) {
+            this.unavailableSections = unavailableSections;
+        }
     }
 }
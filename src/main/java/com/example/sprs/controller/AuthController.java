@@ -6,16 +6,26 @@ import com.example.sprs.dto.RegisterRequest;
 import com.example.sprs.dto.ApiResponse;
 import com.example.sprs.model.User;
 import com.example.sprs.security.JwtUtil;
+import com.example.sprs.security.LoginRateLimiter;
+import com.example.sprs.security.TokenDenylist;
+import com.example.sprs.security.VerifiedClaims;
 import com.example.sprs.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -32,37 +42,79 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Value("${auth.bcrypt.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest loginRequest,
+                                                      HttpServletRequest httpRequest) {
+        long retryAfterMillis = loginRateLimiter.tryAcquire(loginRequest.getUsername(), httpRequest.getRemoteAddr());
+        if (retryAfterMillis > 0) {
+            return CompletableFuture.completedFuture(tooManyAttempts(retryAfterMillis));
+        }
+
         try {
-            Optional<User> userOpt = userService.authenticateUser(
-                    loginRequest.getUsername(),
-                    loginRequest.getPassword(),
-                    loginRequest.getRole()
-            );
+            return userService.authenticateUser(
+                            loginRequest.getUsername(),
+                            loginRequest.getPassword(),
+                            loginRequest.getRole()
+                    )
+                    .thenApply(this::loginResponse)
+                    .exceptionally(e -> ResponseEntity.badRequest()
+                            .body(new ApiResponse<>(false, "Authentication failed: " + rootCause(e).getMessage(), null)));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(new ApiResponse<>(false, "Too many login attempts in progress, please retry shortly", null)));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, "Authentication failed: " + e.getMessage(), null)));
+        }
+    }
 
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                String token = jwtUtil.generateToken(
-                        user.getUsername(),
-                        user.getRole().name(),
-                        user.getId()
-                );
+    private ResponseEntity<?> loginResponse(Optional<User> userOpt) {
+        if (userOpt.isPresent()) {
+            User user = userOpt.get();
+            String token = jwtUtil.generateToken(
+                    user.getUsername(),
+                    user.getRole().name(),
+                    user.getId(),
+                    user.getTokenVersion()
+            );
 
-                LoginResponse response = new LoginResponse(user, token);
-                return ResponseEntity.ok(new ApiResponse<>(true, "Login successful", response));
-            } else {
-                return ResponseEntity.badRequest()
-                        .body(new ApiResponse<>(false, "Invalid credentials", null));
-            }
-        } catch (Exception e) {
+            LoginResponse response = new LoginResponse(user, token);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Login successful", response));
+        } else {
             return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "Authentication failed: " + e.getMessage(), null));
+                    .body(new ApiResponse<>(false, "Invalid credentials", null));
         }
     }
 
+    private ResponseEntity<?> tooManyAttempts(long retryAfterMillis) {
+        long seconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                .body(new ApiResponse<>(false, "Too many attempts, please retry later", null));
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest registerRequest) {
+    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest registerRequest,
+                                      HttpServletRequest httpRequest) {
+        long retryAfterMillis = loginRateLimiter.tryAcquire(httpRequest.getRemoteAddr());
+        if (retryAfterMillis > 0) {
+            return tooManyAttempts(retryAfterMillis);
+        }
+
         try {
             User user = new User();
             user.setUsername(registerRequest.getUsername());
@@ -78,6 +130,23 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        try {
+            if (authorization == null || !authorization.startsWith("Bearer ")) {
+                return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "Missing bearer token", null));
+            }
+
+            VerifiedClaims claims = jwtUtil.verify(authorization.substring(7));
+            tokenDenylist.revoke(claims);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Logged out successfully", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, "Logout failed: " + e.getMessage(), null));
+        }
+    }
+
     @GetMapping("/profile")
     public ResponseEntity<?> getProfile() {
         try {
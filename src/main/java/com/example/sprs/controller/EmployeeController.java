@@ -1,23 +1,30 @@
 package com.example.sprs.controller;
 
 import com.example.sprs.dto.ApiResponse;
+import com.example.sprs.dto.BulkReviewRequestDto;
+import com.example.sprs.dto.BulkReviewResult;
+import com.example.sprs.dto.CursorPage;
+import com.example.sprs.dto.RequestSummary;
 import com.example.sprs.dto.ReviewRequestDto;
 import com.example.sprs.model.Request;
 import com.example.sprs.model.User;
 import com.example.sprs.model.Notification;
+import com.example.sprs.security.CurrentUser;
+import com.example.sprs.service.RequestConflictException;
 import com.example.sprs.service.RequestService;
+import com.example.sprs.service.DashboardAssembler;
+import com.example.sprs.service.DashboardService;
 import com.example.sprs.service.NotificationService;
-import com.example.sprs.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/employee")
@@ -31,19 +38,17 @@ public class EmployeeController {
     private NotificationService notificationService;
 
     @Autowired
-    private UserService userService;
+    private DashboardService dashboardService;
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    @Autowired
+    private DashboardAssembler dashboardAssembler;
 
     @GetMapping("/requests/pending")
-    public ResponseEntity<?> getPendingRequests() {
+    public ResponseEntity<?> getPendingRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            List<Request> pendingRequests = requestService.getPendingRequestsForEmployee();
+            CursorPage<RequestSummary> pendingRequests = requestService.getPendingRequestsForEmployee(cursor, size);
             return ResponseEntity.ok(new ApiResponse<>(true, "Pending requests retrieved successfully", pendingRequests));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -54,7 +59,7 @@ public class EmployeeController {
     @GetMapping("/requests/{id}")
     public ResponseEntity<?> getRequest(@PathVariable String id) {
         try {
-            Optional<Request> requestOpt = requestService.findById(id);
+            Optional<Request> requestOpt = requestService.findByIdWithLetter(id);
 
             if (requestOpt.isPresent()) {
                 return ResponseEntity.ok(new ApiResponse<>(true, "Request retrieved successfully", requestOpt.get()));
@@ -68,11 +73,28 @@ public class EmployeeController {
         }
     }
 
-    @PostMapping("/requests/{id}/review")
-    public ResponseEntity<?> reviewRequest(@PathVariable String id, @Valid @RequestBody ReviewRequestDto reviewDto) {
+    @PostMapping("/requests/review")
+    public ResponseEntity<?> bulkReviewRequests(@CurrentUser User currentUser, @Valid @RequestBody BulkReviewRequestDto reviewDto) {
         try {
-            User currentUser = getCurrentUser();
+            BulkReviewResult result = requestService.bulkEmployeeReview(
+                    reviewDto.getIds(),
+                    currentUser.getId(),
+                    reviewDto.getAction().name(),
+                    reviewDto.getComments(),
+                    reviewDto.getRejectionReason()
+            );
+
+            String message = result.getSucceeded() + " of " + result.getResults().size() + " requests reviewed";
+            return ResponseEntity.ok(new ApiResponse<>(true, message, result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, "Error reviewing requests: " + e.getMessage(), null));
+        }
+    }
 
+    @PostMapping("/requests/{id}/review")
+    public ResponseEntity<?> reviewRequest(@CurrentUser User currentUser, @PathVariable String id, @Valid @RequestBody ReviewRequestDto reviewDto) {
+        try {
             // ✅ Convert enum to string using .name()
             Request reviewedRequest = requestService.employeeReviewRequest(
                     id,
@@ -87,6 +109,9 @@ public class EmployeeController {
                     "Request accepted successfully" : "Request rejected successfully";
 
             return ResponseEntity.ok(new ApiResponse<>(true, message, reviewedRequest));
+        } catch (RequestConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, "Error reviewing request: " + e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse<>(false, "Error reviewing request: " + e.getMessage(), null));
@@ -95,10 +120,13 @@ public class EmployeeController {
 
 
     @GetMapping("/requests/reviewed")
-    public ResponseEntity<?> getReviewedRequests() {
+    public ResponseEntity<?> getReviewedRequests(
+            @CurrentUser User currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            User currentUser = getCurrentUser();
-            List<Request> reviewedRequests = requestService.getRequestsReviewedByEmployee(currentUser.getId());
+            CursorPage<RequestSummary> reviewedRequests =
+                    requestService.getRequestsReviewedByEmployee(currentUser.getId(), cursor, size);
             return ResponseEntity.ok(new ApiResponse<>(true, "Reviewed requests retrieved successfully", reviewedRequests));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -108,12 +136,11 @@ public class EmployeeController {
 
     @GetMapping("/notifications")
     public ResponseEntity<?> getNotifications(
+            @CurrentUser User currentUser,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "false") boolean unreadOnly) {
         try {
-            User currentUser = getCurrentUser();
-
             Page<Notification> notifications;
             if (unreadOnly) {
                 notifications = notificationService.getUnreadNotifications(currentUser, page, size);
@@ -129,10 +156,9 @@ public class EmployeeController {
     }
 
     @PutMapping("/notifications/{id}/read")
-    public ResponseEntity<?> markNotificationAsRead(@PathVariable String id) {
+    public ResponseEntity<?> markNotificationAsRead(@CurrentUser User currentUser, @PathVariable String id) {
         try {
-            User currentUser = getCurrentUser();
-            Notification notification = notificationService.markAsRead(id, currentUser.getId());
+            Notification notification = notificationService.markAsRead(id, currentUser);
             return ResponseEntity.ok(new ApiResponse<>(true, "Notification marked as read", notification));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -141,9 +167,8 @@ public class EmployeeController {
     }
 
     @GetMapping("/notifications/unread-count")
-    public ResponseEntity<?> getUnreadNotificationCount() {
+    public ResponseEntity<?> getUnreadNotificationCount(@CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser();
             long unreadCount = notificationService.getUnreadCount(currentUser);
             return ResponseEntity.ok(new ApiResponse<>(true, "Unread count retrieved", unreadCount));
         } catch (Exception e) {
@@ -153,19 +178,23 @@ public class EmployeeController {
     }
 
     @GetMapping("/dashboard")
-    public ResponseEntity<?> getDashboard() {
+    public ResponseEntity<?> getDashboard(@CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser();
-
-            List<Request> pendingRequests = requestService.getPendingRequestsForEmployee();
-            Page<Notification> notifications = notificationService.getUserNotifications(currentUser, 0, 5);
-            long unreadCount = notificationService.getUnreadCount(currentUser);
+            DashboardAssembler.Assembly assembly = dashboardAssembler.begin();
+            CompletableFuture<DashboardService.RequestStats> pendingSection =
+                    assembly.critical(() -> dashboardService.getRequestStatsByStatus(Request.Status.PENDING, 10));
+            CompletableFuture<DashboardService.NotificationStats> notificationSection =
+                    assembly.optional("notifications", () -> dashboardService.getNotificationStats(currentUser, 5),
+                            DashboardService.NotificationStats.EMPTY);
+            DashboardService.RequestStats pending = assembly.join(pendingSection);
+            DashboardService.NotificationStats notifications = assembly.join(notificationSection);
 
             EmployeeDashboardData dashboard = new EmployeeDashboardData();
-            dashboard.setPendingRequests(pendingRequests.subList(0, Math.min(10, pendingRequests.size())));
-            dashboard.setRecentNotifications(notifications.getContent());
-            dashboard.setUnreadNotifications(unreadCount);
-            dashboard.setTotalPendingRequests(pendingRequests.size());
+            dashboard.setPendingRequests(pending.getRecent());
+            dashboard.setRecentNotifications(notifications.getRecent());
+            dashboard.setUnreadNotifications(notifications.getUnreadCount());
+            dashboard.setUnavailableSections(assembly.getUnavailable());
+            dashboard.setTotalPendingRequests(pending.getTotal());
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Dashboard data retrieved", dashboard));
         } catch (Exception e) {
@@ -176,16 +205,17 @@ public class EmployeeController {
 
     // Inner class for employee dashboard data
     public static class EmployeeDashboardData {
-        private List<Request> pendingRequests;
+        private List<RequestSummary> pendingRequests;
         private List<Notification> recentNotifications;
         private long unreadNotifications;
-        private int totalPendingRequests;
+        private long totalPendingRequests;
+        private List<String> unavailableSections;
 
-        public List<Request> getPendingRequests() {
+        public List<RequestSummary> getPendingRequests() {
             return pendingRequests;
         }
 
-        public void setPendingRequests(List<Request> pendingRequests) {
+        public void setPendingRequests(List<RequestSummary> pendingRequests) {
             this.pendingRequests = pendingRequests;
         }
 
@@ -205,12 +235,20 @@ public class EmployeeController {
             this.unreadNotifications = unreadNotifications;
         }
 
-        public int getTotalPendingRequests() {
+        public long getTotalPendingRequests() {
             return totalPendingRequests;
         }
 
-        public void setTotalPendingRequests(int totalPendingRequests) {
+        public void setTotalPendingRequests(long totalPendingRequests) {
             this.totalPendingRequests = totalPendingRequests;
         }
+
+        public List<String> getUnavailableSections() {
+            return unavailableSections;
+        }
+
+        public void setUnavailableSections(List<String> unavailableSections) {
+            this.unavailableSections = unavailableSections;
+        }
     }
 }
@@ -2,23 +2,29 @@ package com.example.sprs.controller;
 
 import com.example.sprs.dto.ApiResponse;
 import com.example.sprs.dto.CreateRequestDto;
+import com.example.sprs.dto.CursorPage;
+import com.example.sprs.dto.RequestSummary;
 import com.example.sprs.model.Request;
 import com.example.sprs.model.User;
 import com.example.sprs.model.Notification;
+import com.example.sprs.security.CurrentUser;
+import com.example.sprs.service.RequestConflictException;
 import com.example.sprs.service.RequestService;
+import com.example.sprs.service.DashboardAssembler;
+import com.example.sprs.service.DashboardService;
 import com.example.sprs.service.NotificationService;
-import com.example.sprs.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import 	jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/student")
@@ -32,20 +38,14 @@ public class StudentController {
     private NotificationService notificationService;
 
     @Autowired
-    private UserService userService;
+    private DashboardService dashboardService;
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    @Autowired
+    private DashboardAssembler dashboardAssembler;
 
     @PostMapping("/requests")
-    public ResponseEntity<?> createRequest(@Valid @RequestBody CreateRequestDto createRequestDto) {
+    public ResponseEntity<?> createRequest(@CurrentUser User currentUser, @Valid @RequestBody CreateRequestDto createRequestDto) {
         try {
-            User currentUser = getCurrentUser();
-
             Request request = new Request();
             request.setRequestType(createRequestDto.getRequestType());
             request.setFormData(createRequestDto.getFormData());
@@ -59,15 +59,16 @@ public class StudentController {
     }
 
     @GetMapping("/requests")
-    public ResponseEntity<?> getRequests(@RequestParam(required = false) Request.Status status) {
+    public ResponseEntity<?> getRequests(@CurrentUser User currentUser,
+                                         @RequestParam(required = false) Request.Status status,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "20") int size) {
         try {
-            User currentUser = getCurrentUser();
-
-            List<Request> requests;
+            CursorPage<RequestSummary> requests;
             if (status != null) {
-                requests = requestService.getStudentRequestsByStatus(currentUser.getId(), status);
+                requests = requestService.getStudentRequestsByStatus(currentUser.getId(), status, cursor, size);
             } else {
-                requests = requestService.getStudentRequests(currentUser.getId());
+                requests = requestService.getStudentRequests(currentUser.getId(), cursor, size);
             }
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Requests retrieved successfully", requests));
@@ -78,14 +79,13 @@ public class StudentController {
     }
 
     @GetMapping("/requests/{id}")
-    public ResponseEntity<?> getRequest(@PathVariable String id) {
+    public ResponseEntity<?> getRequest(@CurrentUser User currentUser, @PathVariable String id) {
         try {
-            User currentUser = getCurrentUser();
-            Optional<Request> requestOpt = requestService.findById(id);
+            Optional<Request> requestOpt = requestService.findByIdWithLetter(id);
 
             if (requestOpt.isPresent()) {
                 Request request = requestOpt.get();
-                if (!request.getStudent().getId().equals(currentUser.getId())) {
+                if (!currentUser.getId().equals(request.getStudentId())) {
                     return ResponseEntity.badRequest()
                             .body(new ApiResponse<>(false, "Access denied", null));
                 }
@@ -101,10 +101,8 @@ public class StudentController {
     }
 
     @PutMapping("/requests/{id}")
-    public ResponseEntity<?> updateRequest(@PathVariable String id, @Valid @RequestBody CreateRequestDto updateRequestDto) {
+    public ResponseEntity<?> updateRequest(@CurrentUser User currentUser, @PathVariable String id, @Valid @RequestBody CreateRequestDto updateRequestDto) {
         try {
-            User currentUser = getCurrentUser();
-
             Request request = new Request();
             request.setRequestType(updateRequestDto.getRequestType());
             request.setFormData(updateRequestDto.getFormData());
@@ -118,11 +116,13 @@ public class StudentController {
     }
 
     @PostMapping("/requests/{id}/submit")
-    public ResponseEntity<?> submitRequest(@PathVariable String id) {
+    public ResponseEntity<?> submitRequest(@CurrentUser User currentUser, @PathVariable String id) {
         try {
-            User currentUser = getCurrentUser();
             Request submittedRequest = requestService.generateAndSubmitLetter(id, currentUser.getId());
             return ResponseEntity.ok(new ApiResponse<>(true, "Request submitted successfully", submittedRequest));
+        } catch (RequestConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, "Error submitting request: " + e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse<>(false, "Error submitting request: " + e.getMessage(), null));
@@ -130,9 +130,8 @@ public class StudentController {
     }
 
     @DeleteMapping("/requests/{id}")
-    public ResponseEntity<?> deleteRequest(@PathVariable String id) {
+    public ResponseEntity<?> deleteRequest(@CurrentUser User currentUser, @PathVariable String id) {
         try {
-            User currentUser = getCurrentUser();
             requestService.deleteRequest(id, currentUser.getId());
             return ResponseEntity.ok(new ApiResponse<>(true, "Request deleted successfully", null));
         } catch (Exception e) {
@@ -143,12 +142,11 @@ public class StudentController {
 
     @GetMapping("/notifications")
     public ResponseEntity<?> getNotifications(
+            @CurrentUser User currentUser,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "false") boolean unreadOnly) {
         try {
-            User currentUser = getCurrentUser();
-
             Page<Notification> notifications;
             if (unreadOnly) {
                 notifications = notificationService.getUnreadNotifications(currentUser, page, size);
@@ -164,10 +162,9 @@ public class StudentController {
     }
 
     @PutMapping("/notifications/{id}/read")
-    public ResponseEntity<?> markNotificationAsRead(@PathVariable String id) {
+    public ResponseEntity<?> markNotificationAsRead(@CurrentUser User currentUser, @PathVariable String id) {
         try {
-            User currentUser = getCurrentUser();
-            Notification notification = notificationService.markAsRead(id, currentUser.getId());
+            Notification notification = notificationService.markAsRead(id, currentUser);
             return ResponseEntity.ok(new ApiResponse<>(true, "Notification marked as read", notification));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -176,9 +173,8 @@ public class StudentController {
     }
 
     @PutMapping("/notifications/read-all")
-    public ResponseEntity<?> markAllNotificationsAsRead() {
+    public ResponseEntity<?> markAllNotificationsAsRead(@CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser();
             notificationService.markAllAsRead(currentUser);
             return ResponseEntity.ok(new ApiResponse<>(true, "All notifications marked as read", null));
         } catch (Exception e) {
@@ -188,9 +184,8 @@ public class StudentController {
     }
 
     @GetMapping("/notifications/unread-count")
-    public ResponseEntity<?> getUnreadNotificationCount() {
+    public ResponseEntity<?> getUnreadNotificationCount(@CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser();
             long unreadCount = notificationService.getUnreadCount(currentUser);
             return ResponseEntity.ok(new ApiResponse<>(true, "Unread count retrieved", unreadCount));
         } catch (Exception e) {
@@ -200,18 +195,24 @@ public class StudentController {
     }
 
     @GetMapping("/dashboard")
-    public ResponseEntity<?> getDashboard() {
+    public ResponseEntity<?> getDashboard(@CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser();
-
-            List<Request> recentRequests = requestService.getStudentRequests(currentUser.getId());
-            Page<Notification> notifications = notificationService.getUserNotifications(currentUser, 0, 5);
-            long unreadCount = notificationService.getUnreadCount(currentUser);
+            DashboardAssembler.Assembly assembly = dashboardAssembler.begin();
+            CompletableFuture<DashboardService.RequestStats> requestsSection =
+                    assembly.critical(() -> dashboardService.getStudentRequestStats(currentUser.getId(), 5));
+            CompletableFuture<DashboardService.NotificationStats> notificationSection =
+                    assembly.optional("notifications", () -> dashboardService.getNotificationStats(currentUser, 5),
+                            DashboardService.NotificationStats.EMPTY);
+            DashboardService.RequestStats requests = assembly.join(requestsSection);
+            DashboardService.NotificationStats notifications = assembly.join(notificationSection);
 
             DashboardData dashboard = new DashboardData();
-            dashboard.setRecentRequests(recentRequests.subList(0, Math.min(5, recentRequests.size())));
-            dashboard.setRecentNotifications(notifications.getContent());
-            dashboard.setUnreadNotifications(unreadCount);
+            dashboard.setRecentRequests(requests.getRecent());
+            dashboard.setRequestsByStatus(requests.getCountsByStatus());
+            dashboard.setTotalRequests(requests.getTotal());
+            dashboard.setRecentNotifications(notifications.getRecent());
+            dashboard.setUnreadNotifications(notifications.getUnreadCount());
+            dashboard.setUnavailableSections(assembly.getUnavailable());
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Dashboard data retrieved", dashboard));
         } catch (Exception e) {
@@ -222,18 +223,30 @@ public class StudentController {
 
     // Inner class for dashboard data
     public static class DashboardData {
-        private List<Request> recentRequests;
+        private List<RequestSummary> recentRequests;
+        private Map<Request.Status, Long> requestsByStatus;
+        private long totalRequests;
         private List<Notification> recentNotifications;
         private long unreadNotifications;
+        private List<String> unavailableSections;
 
         // Getters and setters
-        public List<Request> getRecentRequests() { return recentRequests; }
-        public void setRecentRequests(List<Request> recentRequests) { this.recentRequests = recentRequests; }
+        public List<RequestSummary> getRecentRequests() { return recentRequests; }
+        public void setRecentRequests(List<RequestSummary> recentRequests) { this.recentRequests = recentRequests; }
+
+        public Map<Request.Status, Long> getRequestsByStatus() { return requestsByStatus; }
+        public void setRequestsByStatus(Map<Request.Status, Long> requestsByStatus) { this.requestsByStatus = requestsByStatus; }
+
+        public long getTotalRequests() { return totalRequests; }
+        public void setTotalRequests(long totalRequests) { this.totalRequests = totalRequests; }
 
         public List<Notification> getRecentNotifications() { return recentNotifications; }
         public void setRecentNotifications(List<Notification> recentNotifications) { this.recentNotifications = recentNotifications; }
 
         public long getUnreadNotifications() { return unreadNotifications; }
         public void setUnreadNotifications(long unreadNotifications) { this.unreadNotifications = unreadNotifications; }
+
+        public List<String> getUnavailableSections() { return unavailableSections; }
+        public void setUnavailableSections(List<String> unavailableSections) { this.unavailableSections = unavailableSections; }
     }
 }
\ No newline at end of file
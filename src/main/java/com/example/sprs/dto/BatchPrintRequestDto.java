@@ -0,0 +1,24 @@
+package com.example.sprs.dto;
+
+import com.example.sprs.model.Request;
+
+import java.util.List;
+
+// Selects accepted requests to print: the given ids, or every accepted request (optionally of
+// one type) when no ids are given
+public class BatchPrintRequestDto {
+
+    private List<String> ids;
+
+    private Request.RequestType requestType;
+
+    // Constructors
+    public BatchPrintRequestDto() {}
+
+    // Getters and setters
+    public List<String> getIds() { return ids; }
+    public void setIds(List<String> ids) { this.ids = ids; }
+
+    public Request.RequestType getRequestType() { return requestType; }
+    public void setRequestType(Request.RequestType requestType) { this.requestType = requestType; }
+}
@@ -0,0 +1,37 @@
+package com.example.sprs.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+// The same review action applied to many pending requests
+public class BulkReviewRequestDto {
+
+    @NotEmpty(message = "At least one request id is required")
+    private List<@NotBlank(message = "Request ids must not be blank") String> ids;
+
+    @NotNull(message = "Action is required")
+    private ReviewRequestDto.Action action;
+
+    private String comments;
+
+    private String rejectionReason;
+
+    // Constructors
+    public BulkReviewRequestDto() {}
+
+    // Getters and setters
+    public List<String> getIds() { return ids; }
+    public void setIds(List<String> ids) { this.ids = ids; }
+
+    public ReviewRequestDto.Action getAction() { return action; }
+    public void setAction(ReviewRequestDto.Action action) { this.action = action; }
+
+    public String getComments() { return comments; }
+    public void setComments(String comments) { this.comments = comments; }
+
+    public String getRejectionReason() { return rejectionReason; }
+    public void setRejectionReason(String rejectionReason) { this.rejectionReason = rejectionReason; }
+}
@@ -0,0 +1,58 @@
+package com.example.sprs.dto;
+
+import com.example.sprs.model.Request;
+
+import java.util.List;
+
+// Per-request outcome of a bulk review, in the order the ids were given
+public class BulkReviewResult {
+
+    public enum Outcome { SUCCESS, CONFLICT, NOT_FOUND }
+
+    private List<Item> results;
+    private int succeeded;
+    private int failed;
+
+    public BulkReviewResult() {}
+
+    public BulkReviewResult(List<Item> results) {
+        this.results = results;
+        this.succeeded = (int) results.stream().filter(item -> item.getOutcome() == Outcome.SUCCESS).count();
+        this.failed = results.size() - succeeded;
+    }
+
+    // Getters and setters
+    public List<Item> getResults() { return results; }
+    public void setResults(List<Item> results) { this.results = results; }
+
+    public int getSucceeded() { return succeeded; }
+    public void setSucceeded(int succeeded) { this.succeeded = succeeded; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public static class Item {
+        private String requestId;
+        private Outcome outcome;
+        // Status after the review, or the status that prevented it
+        private Request.Status status;
+
+        public Item() {}
+
+        public Item(String requestId, Outcome outcome, Request.Status status) {
+            this.requestId = requestId;
+            this.outcome = outcome;
+            this.status = status;
+        }
+
+        // Getters and setters
+        public String getRequestId() { return requestId; }
+        public void setRequestId(String requestId) { this.requestId = requestId; }
+
+        public Outcome getOutcome() { return outcome; }
+        public void setOutcome(Outcome outcome) { this.outcome = outcome; }
+
+        public Request.Status getStatus() { return status; }
+        public void setStatus(Request.Status status) { this.status = status; }
+    }
+}
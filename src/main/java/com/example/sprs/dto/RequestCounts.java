@@ -0,0 +1,44 @@
+package com.example.sprs.dto;
+
+import com.example.sprs.model.Request;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Live request tallies: totals by status, and by status within each request type and branch
+public class RequestCounts {
+    private Map<Request.Status, Long> byStatus;
+    private Map<Request.RequestType, Map<Request.Status, Long>> byType;
+    private Map<String, Map<Request.Status, Long>> byBranch;
+    private long total;
+    private LocalDateTime reconciledAt;
+
+    public RequestCounts() {}
+
+    public RequestCounts(Map<Request.Status, Long> byStatus,
+                         Map<Request.RequestType, Map<Request.Status, Long>> byType,
+                         Map<String, Map<Request.Status, Long>> byBranch,
+                         LocalDateTime reconciledAt) {
+        this.byStatus = byStatus;
+        this.byType = byType;
+        this.byBranch = byBranch;
+        this.total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+        this.reconciledAt = reconciledAt;
+    }
+
+    // Getters and setters
+    public Map<Request.Status, Long> getByStatus() { return byStatus; }
+    public void setByStatus(Map<Request.Status, Long> byStatus) { this.byStatus = byStatus; }
+
+    public Map<Request.RequestType, Map<Request.Status, Long>> getByType() { return byType; }
+    public void setByType(Map<Request.RequestType, Map<Request.Status, Long>> byType) { this.byType = byType; }
+
+    public Map<String, Map<Request.Status, Long>> getByBranch() { return byBranch; }
+    public void setByBranch(Map<String, Map<Request.Status, Long>> byBranch) { this.byBranch = byBranch; }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public LocalDateTime getReconciledAt() { return reconciledAt; }
+    public void setReconciledAt(LocalDateTime reconciledAt) { this.reconciledAt = reconciledAt; }
+}
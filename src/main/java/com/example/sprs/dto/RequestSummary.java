@@ -0,0 +1,46 @@
+package com.example.sprs.dto;
+
+import com.example.sprs.model.Request;
+import com.example.sprs.model.UserRef;
+
+import java.time.LocalDateTime;
+
+// What the request list screens show. Used as a projection type, so only these fields are read
+// from Mongo; the full Request (letter, form data, reviews) comes from the detail endpoints.
+public class RequestSummary {
+    private String id;
+    private String studentId;
+    private UserRef studentInfo;
+    private Request.RequestType requestType;
+    private Request.Status status;
+    private Request.Priority priority;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public RequestSummary() {}
+
+    // Getters and setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getStudentId() { return studentId; }
+    public void setStudentId(String studentId) { this.studentId = studentId; }
+
+    public UserRef getStudentInfo() { return studentInfo; }
+    public void setStudentInfo(UserRef studentInfo) { this.studentInfo = studentInfo; }
+
+    public Request.RequestType getRequestType() { return requestType; }
+    public void setRequestType(Request.RequestType requestType) { this.requestType = requestType; }
+
+    public Request.Status getStatus() { return status; }
+    public void setStatus(Request.Status status) { this.status = status; }
+
+    public Request.Priority getPriority() { return priority; }
+    public void setPriority(Request.Priority priority) { this.priority = priority; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
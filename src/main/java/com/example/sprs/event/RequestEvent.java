@@ -0,0 +1,63 @@
+package com.example.sprs.event;
+
+import com.example.sprs.model.Notification;
+import com.example.sprs.model.Request;
+
+import java.time.LocalDateTime;
+
+// Lifecycle change of a request, published after the new state has been persisted
+public class RequestEvent {
+
+    private final Type type;
+    private final String requestId;
+    private final String actorId;
+    private final LocalDateTime occurredAt;
+
+    public RequestEvent(Type type, String requestId, String actorId) {
+        this(type, requestId, actorId, LocalDateTime.now());
+    }
+
+    public RequestEvent(Type type, String requestId, String actorId, LocalDateTime occurredAt) {
+        this.type = type;
+        this.requestId = requestId;
+        this.actorId = actorId;
+        this.occurredAt = occurredAt;
+    }
+
+    public static RequestEvent fromOutbox(String requestId, Request.OutboxEvent entry) {
+        return new RequestEvent(Type.valueOf(entry.getType()), requestId, entry.getActorId(), entry.getCreatedAt());
+    }
+
+    // Each lifecycle transition happens at most once per request, so this identifies the event
+    public String getKey() {
+        return requestId + ":" + type.name();
+    }
+
+    // Getters
+    public Type getType() { return type; }
+
+    public String getRequestId() { return requestId; }
+
+    public String getActorId() { return actorId; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+
+    public enum Type {
+        SUBMITTED(Request.Status.PENDING, Notification.NotificationType.REQUEST_SUBMITTED),
+        ACCEPTED(Request.Status.ACCEPTED, Notification.NotificationType.REQUEST_ACCEPTED),
+        REJECTED(Request.Status.REJECTED, Notification.NotificationType.REQUEST_REJECTED),
+        COMPLETED(Request.Status.COMPLETED, Notification.NotificationType.REQUEST_COMPLETED);
+
+        private final Request.Status resultingStatus;
+        private final Notification.NotificationType notificationType;
+
+        Type(Request.Status resultingStatus, Notification.NotificationType notificationType) {
+            this.resultingStatus = resultingStatus;
+            this.notificationType = notificationType;
+        }
+
+        public Request.Status getResultingStatus() { return resultingStatus; }
+
+        public Notification.NotificationType getNotificationType() { return notificationType; }
+    }
+}
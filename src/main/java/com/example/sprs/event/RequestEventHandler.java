@@ -0,0 +1,9 @@
+package com.example.sprs.event;
+
+import java.util.List;
+
+// Consumes batches of request events on pipeline worker threads
+public interface RequestEventHandler {
+
+    void handle(List<RequestEvent> events);
+}
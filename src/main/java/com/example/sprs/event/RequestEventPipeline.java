@@ -0,0 +1,178 @@
+package com.example.sprs.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded, lock-free hand-off of request events from request threads to worker threads.
+// When full, publish() either drops the event or waits (up to a timeout) for space.
+// On shutdown, publishing stops and workers drain whatever is still queued.
+@Component
+public class RequestEventPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestEventPipeline.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private final ConcurrentLinkedQueue<RequestEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    @Autowired
+    private RequestEventHandler handler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${request-events.queue-capacity:10000}")
+    private int capacity;
+
+    @Value("${request-events.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${request-events.block-timeout-ms:1000}")
+    private long blockTimeoutMs;
+
+    @Value("${request-events.workers:2}")
+    private int workerCount;
+
+    @Value("${request-events.batch-size:100}")
+    private int batchSize;
+
+    @Value("${request-events.drain-timeout-ms:10000}")
+    private long drainTimeoutMs;
+
+    private volatile boolean accepting = true;
+    private volatile boolean running = true;
+    private Thread[] workers;
+
+    private Counter publishedCounter;
+    private Counter droppedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void start() {
+        publishedCounter = Counter.builder("request.events.published").register(meterRegistry);
+        droppedCounter = Counter.builder("request.events.dropped").register(meterRegistry);
+        failedCounter = Counter.builder("request.events.failed").register(meterRegistry);
+        Gauge.builder("request.events.queue.depth", size, AtomicInteger::get).register(meterRegistry);
+
+        workers = new Thread[Math.max(1, workerCount)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::runWorker, "request-events-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    // Returns false if the event was dropped
+    public boolean publish(RequestEvent event) {
+        if (!accepting) {
+            // Shutting down: hand the event over directly rather than losing it
+            dispatch(List.of(event));
+            return true;
+        }
+
+        if (!reserveSlot()) {
+            droppedCounter.increment();
+            logger.warn("Request event pipeline full, dropped {} event for request {}",
+                    event.getType(), event.getRequestId());
+            return false;
+        }
+
+        queue.offer(event);
+        publishedCounter.increment();
+        LockSupport.unpark(workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)]);
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return size.get();
+    }
+
+    private boolean reserveSlot() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        while (true) {
+            int current = size.get();
+            if (current < capacity) {
+                if (size.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+                continue;
+            }
+            if (overflowPolicy == OverflowPolicy.DROP || System.nanoTime() >= deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    private void runWorker() {
+        List<RequestEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            RequestEvent event;
+            while (batch.size() < batchSize && (event = queue.poll()) != null) {
+                batch.add(event);
+            }
+
+            if (!batch.isEmpty()) {
+                size.addAndGet(-batch.size());
+                dispatch(batch);
+                batch.clear();
+            } else if (!running) {
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void dispatch(List<RequestEvent> batch) {
+        try {
+            handler.handle(batch);
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            logger.error("Failed to handle {} request events: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        accepting = false;
+        running = false;
+
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+
+        // Events offered while the workers were exiting are handled on the shutdown thread
+        List<RequestEvent> remaining = new ArrayList<>();
+        RequestEvent event;
+        while ((event = queue.poll()) != null) {
+            remaining.add(event);
+        }
+        if (!remaining.isEmpty()) {
+            size.addAndGet(-remaining.size());
+            dispatch(remaining);
+        }
+    }
+}
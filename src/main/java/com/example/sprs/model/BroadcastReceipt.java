@@ -0,0 +1,50 @@
+package com.example.sprs.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+// Per-user read state for role-wide broadcast notifications: everything up to readUpTo is read,
+// plus the individually read ids after it. Dismissed broadcasts are hidden from the user.
+@Document(collection = "broadcast_receipts")
+public class BroadcastReceipt {
+    // Same as the user id
+    @Id
+    private String id;
+
+    private LocalDateTime readUpTo;
+
+    private Set<String> readIds = new HashSet<>();
+
+    private Set<String> dismissedIds = new HashSet<>();
+
+    // Constructors
+    public BroadcastReceipt() {}
+
+    public BroadcastReceipt(String userId) {
+        this.id = userId;
+    }
+
+    public boolean isRead(Notification notification) {
+        if (readUpTo != null && !notification.getCreatedAt().isAfter(readUpTo)) {
+            return true;
+        }
+        return readIds != null && readIds.contains(notification.getId());
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public LocalDateTime getReadUpTo() { return readUpTo; }
+    public void setReadUpTo(LocalDateTime readUpTo) { this.readUpTo = readUpTo; }
+
+    public Set<String> getReadIds() { return readIds; }
+    public void setReadIds(Set<String> readIds) { this.readIds = readIds; }
+
+    public Set<String> getDismissedIds() { return dismissedIds; }
+    public void setDismissedIds(Set<String> dismissedIds) { this.dismissedIds = dismissedIds; }
+}
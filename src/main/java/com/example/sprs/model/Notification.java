@@ -1,24 +1,33 @@
 package com.example.sprs.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "notifications")
+@CompoundIndexes({
+        @CompoundIndex(name = "recipientId_createdAt", def = "{'recipientId': 1, 'createdAt': -1}"),
+        @CompoundIndex(name = "recipientId_isRead_createdAt", def = "{'recipientId': 1, 'isRead': 1, 'createdAt': -1}"),
+        @CompoundIndex(name = "audienceRole_createdAt", def = "{'audienceRole': 1, 'createdAt': -1}")
+})
 public class Notification {
     @Id
     private String id;
 
-    @DBRef
-    private User recipient;
+    private String recipientId;
 
-    @DBRef
-    private User sender;
+    // Set instead of recipient for a broadcast stored once and shown to every user with this role
+    private User.Role audienceRole;
 
-    @DBRef
-    private Request request;
+    private String senderId;
+
+    private UserRef senderInfo;
+
+    // Request type and status at the time of the notification are kept in metadata
+    private String requestId;
 
     private NotificationType type;
 
@@ -39,16 +48,26 @@ public class Notification {
     // Constructors
     public Notification() {}
 
-    public Notification(User recipient, User sender, Request request,
+    public Notification(String recipientId, User sender, Request request,
                         NotificationType type, String title, String message) {
-        this.recipient = recipient;
-        this.sender = sender;
-        this.request = request;
+        this.recipientId = recipientId;
+        this.senderId = sender.getId();
+        this.senderInfo = UserRef.of(sender);
+        this.requestId = request.getId();
         this.type = type;
         this.title = title;
         this.message = message;
     }
 
+    public boolean isBroadcast() {
+        return audienceRole != null;
+    }
+
+    // A broadcast reaches the users of its role who joined before it was sent
+    public boolean isBroadcastTo(User.Role role, LocalDateTime joinedAt) {
+        return audienceRole != null && audienceRole == role && (joinedAt == null || createdAt.isAfter(joinedAt));
+    }
+
     // Method to mark as read
     public void markAsRead() {
         this.isRead = true;
@@ -59,14 +78,20 @@ public class Notification {
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
-    public User getRecipient() { return recipient; }
-    public void setRecipient(User recipient) { this.recipient = recipient; }
+    public String getRecipientId() { return recipientId; }
+    public void setRecipientId(String recipientId) { this.recipientId = recipientId; }
+
+    public User.Role getAudienceRole() { return audienceRole; }
+    public void setAudienceRole(User.Role audienceRole) { this.audienceRole = audienceRole; }
+
+    public String getSenderId() { return senderId; }
+    public void setSenderId(String senderId) { this.senderId = senderId; }
 
-    public User getSender() { return sender; }
-    public void setSender(User sender) { this.sender = sender; }
+    public UserRef getSenderInfo() { return senderInfo; }
+    public void setSenderInfo(UserRef senderInfo) { this.senderInfo = senderInfo; }
 
-    public Request getRequest() { return request; }
-    public void setRequest(Request request) { this.request = request; }
+    public String getRequestId() { return requestId; }
+    public void setRequestId(String requestId) { this.requestId = requestId; }
 
     public NotificationType getType() { return type; }
     public void setType(NotificationType type) { this.type = type; }
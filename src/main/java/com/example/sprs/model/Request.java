@@ -1,24 +1,41 @@
 package com.example.sprs.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
 @Document(collection = "requests")
+@CompoundIndexes({
+        // Status queues, newest first, with _id as the keyset tie-breaker
+        @CompoundIndex(name = "status_createdAt", def = "{'status': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "studentId_createdAt", def = "{'studentId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "studentId_status_createdAt",
+                def = "{'studentId': 1, 'status': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "employeeReview_reviewedBy_createdAt",
+                def = "{'employeeReview.reviewedBy': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "adminReview_reviewedBy", def = "{'adminReview.reviewedBy': 1}"),
+        @CompoundIndex(name = "requestType", def = "{'requestType': 1}"),
+        @CompoundIndex(name = "pendingEvents_createdAt", def = "{'pendingEvents.createdAt': 1}")
+})
 public class Request {
     @Id
     private String id;
 
-    @DBRef
-    private User student;
+    private String studentId;
+
+    private UserRef studentInfo;
 
     private RequestType requestType;
 
     private FormData formData;
 
+    // Only present on requests submitted before letters were rendered on demand
     private String generatedLetter;
 
     private Status status = Status.DRAFT;
@@ -35,53 +52,34 @@ public class Request {
 
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    private LocalDateTime submittedAt;
+
+    // Outbox: lifecycle events written atomically with the state change, removed once relayed
+    private List<OutboxEvent> pendingEvents = new ArrayList<>();
+
     // Constructors
     public Request() {}
 
     public Request(User student, RequestType requestType, FormData formData) {
-        this.student = student;
+        setStudent(student);
         this.requestType = requestType;
         this.formData = formData;
     }
 
-    // Method to generate letter
-    public void generateLetter() {
-        String currentDate = LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-
-        StringBuilder letter = new StringBuilder();
-        letter.append("Date: ").append(currentDate).append("\n\n");
-        letter.append("To,\n");
-        letter.append("The Head of Department,\n");
-        letter.append(formData.getBranch()).append(" Department\n\n");
-        letter.append("Subject: Request for ").append(requestType.name()).append("\n\n");
-        letter.append("Respected Sir/Madam,\n\n");
-        letter.append("I am ").append(formData.getName());
-        letter.append(", a student of ").append(formData.getBranch());
-        letter.append(" department, Section ").append(formData.getSection());
-        letter.append(", with Roll Number ").append(formData.getRollNo()).append(".\n\n");
-        letter.append("I am writing to request permission for ");
-        letter.append(requestType.name().toLowerCase()).append(" on ");
-        letter.append(formData.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
-        letter.append(" at ").append(formData.getTime()).append(".\n\n");
-        letter.append("Reason: ").append(formData.getReason()).append("\n\n");
-        letter.append("I assure you that I will maintain discipline and follow all the guidelines. ");
-        letter.append("I request you to kindly grant me permission for the same.\n\n");
-        letter.append("Contact Number: ").append(formData.getContact()).append("\n\n");
-        letter.append("Thanking you,\n\n");
-        letter.append("Yours sincerely,\n");
-        letter.append(formData.getName()).append("\n");
-        letter.append("Roll No: ").append(formData.getRollNo()).append("\n");
-        letter.append("Section: ").append(formData.getSection());
-
-        this.generatedLetter = letter.toString();
-    }
-
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
-    public User getStudent() { return student; }
-    public void setStudent(User student) { this.student = student; }
+    public String getStudentId() { return studentId; }
+    public void setStudentId(String studentId) { this.studentId = studentId; }
+
+    public UserRef getStudentInfo() { return studentInfo; }
+    public void setStudentInfo(UserRef studentInfo) { this.studentInfo = studentInfo; }
+
+    public void setStudent(User student) {
+        this.studentId = student.getId();
+        this.studentInfo = UserRef.of(student);
+    }
 
     public RequestType getRequestType() { return requestType; }
     public void setRequestType(RequestType requestType) { this.requestType = requestType; }
@@ -113,6 +111,13 @@ public class Request {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+    public void setSubmittedAt(LocalDateTime submittedAt) { this.submittedAt = submittedAt; }
+
+    @JsonIgnore
+    public List<OutboxEvent> getPendingEvents() { return pendingEvents; }
+    public void setPendingEvents(List<OutboxEvent> pendingEvents) { this.pendingEvents = pendingEvents; }
+
     // Enums
     public enum RequestType {
         OUTING, EVENTS, FEE, OTHERS
@@ -171,6 +176,8 @@ public class Request {
         private LocalDateTime reviewedAt;
         private String comments;
         private String action;
+        // Set by bulk reviews so the requests a given bulk write changed can be told apart
+        private String batchId;
 
         // Constructors
         public EmployeeReview() {}
@@ -194,6 +201,9 @@ public class Request {
 
         public String getAction() { return action; }
         public void setAction(String action) { this.action = action; }
+
+        public String getBatchId() { return batchId; }
+        public void setBatchId(String batchId) { this.batchId = batchId; }
     }
 
     public static class AdminReview {
@@ -202,6 +212,8 @@ public class Request {
         private String comments;
         private boolean printed = false;
         private LocalDateTime printedAt;
+        // Set by batch prints so the requests a given print completed can be told apart
+        private String printId;
 
         // Constructors
         public AdminReview() {}
@@ -221,5 +233,38 @@ public class Request {
 
         public LocalDateTime getPrintedAt() { return printedAt; }
         public void setPrintedAt(LocalDateTime printedAt) { this.printedAt = printedAt; }
+
+        public String getPrintId() { return printId; }
+        public void setPrintId(String printId) { this.printId = printId; }
+    }
+
+    public static class OutboxEvent {
+        private String type;
+        private String actorId;
+        private LocalDateTime createdAt;
+        // Failed delivery attempts by the relay
+        private int attempts;
+
+        // Constructors
+        public OutboxEvent() {}
+
+        public OutboxEvent(String type, String actorId) {
+            this.type = type;
+            this.actorId = actorId;
+            this.createdAt = LocalDateTime.now();
+        }
+
+        // Getters and Setters
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+
+        public String getActorId() { return actorId; }
+        public void setActorId(String actorId) { this.actorId = actorId; }
+
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+        public int getAttempts() { return attempts; }
+        public void setAttempts(int attempts) { this.attempts = attempts; }
     }
 }
\ No newline at end of file
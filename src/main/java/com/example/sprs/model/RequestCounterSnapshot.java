@@ -0,0 +1,54 @@
+package com.example.sprs.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+// Persisted request tallies shared by every instance. Each instance adds its own changes with
+// $inc; a periodic recount from the requests collection replaces the counts outright and bumps
+// the epoch, so instances can tell which of their pending changes the recount already covers.
+@Document(collection = "request_counters")
+public class RequestCounterSnapshot {
+    public static final String ID = "requests";
+
+    @Id
+    private String id = ID;
+
+    // "status:<status>", "type:<type>:<status>" or "branch:<branch>:<status>" -> count
+    private Map<String, Long> counts = new HashMap<>();
+
+    // Incremented by every recount; increments are only applied against the epoch they were made in
+    private long epoch;
+
+    // When the last recount finished reading requests, and when it stored the counts
+    private LocalDateTime countedAt;
+    private LocalDateTime recountedAt;
+
+    // Held by the one instance currently recounting
+    private LocalDateTime recountLeaseUntil;
+
+    // Constructors
+    public RequestCounterSnapshot() {}
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Map<String, Long> getCounts() { return counts; }
+    public void setCounts(Map<String, Long> counts) { this.counts = counts; }
+
+    public long getEpoch() { return epoch; }
+    public void setEpoch(long epoch) { this.epoch = epoch; }
+
+    public LocalDateTime getCountedAt() { return countedAt; }
+    public void setCountedAt(LocalDateTime countedAt) { this.countedAt = countedAt; }
+
+    public LocalDateTime getRecountedAt() { return recountedAt; }
+    public void setRecountedAt(LocalDateTime recountedAt) { this.recountedAt = recountedAt; }
+
+    public LocalDateTime getRecountLeaseUntil() { return recountLeaseUntil; }
+    public void setRecountLeaseUntil(LocalDateTime recountLeaseUntil) { this.recountLeaseUntil = recountLeaseUntil; }
+}
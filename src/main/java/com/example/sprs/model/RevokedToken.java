@@ -0,0 +1,46 @@
+package com.example.sprs.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+    // The token's jti claim
+    @Id
+    private String id;
+
+    private String userId;
+
+    // Mongo removes the entry once the token would have expired anyway
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+
+    // Other instances tail new revocations by this
+    @Indexed
+    private LocalDateTime revokedAt = LocalDateTime.now();
+
+    // Constructors
+    public RevokedToken() {}
+
+    public RevokedToken(String id, String userId, LocalDateTime expiresAt) {
+        this.id = id;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(LocalDateTime revokedAt) { this.revokedAt = revokedAt; }
+}
@@ -0,0 +1,76 @@
+package com.example.sprs.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// A change to cached unread counts made on one instance, replayed by the others: either one
+// user's count changed (userId), or a broadcast was stored (broadcastId and its audience).
+@Document(collection = "unread_changes")
+public class UnreadChange {
+    @Id
+    private String id;
+
+    // The instance that made the change and has already applied it
+    private String origin;
+
+    // Other instances tail new changes by this; Mongo drops them once every instance has seen them
+    @Indexed(expireAfterSeconds = 600)
+    private LocalDateTime at = LocalDateTime.now();
+
+    private String userId;
+
+    private String broadcastId;
+    private User.Role audienceRole;
+    private LocalDateTime broadcastCreatedAt;
+
+    // Constructors
+    public UnreadChange() {}
+
+    public static UnreadChange forUser(String userId) {
+        UnreadChange change = new UnreadChange();
+        change.userId = userId;
+        return change;
+    }
+
+    public static UnreadChange forBroadcast(Notification broadcast) {
+        UnreadChange change = new UnreadChange();
+        change.broadcastId = broadcast.getId();
+        change.audienceRole = broadcast.getAudienceRole();
+        change.broadcastCreatedAt = broadcast.getCreatedAt();
+        return change;
+    }
+
+    // The broadcast as far as deciding who receives it goes
+    public Notification toBroadcast() {
+        Notification broadcast = new Notification();
+        broadcast.setId(broadcastId);
+        broadcast.setAudienceRole(audienceRole);
+        broadcast.setCreatedAt(broadcastCreatedAt);
+        return broadcast;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getOrigin() { return origin; }
+    public void setOrigin(String origin) { this.origin = origin; }
+
+    public LocalDateTime getAt() { return at; }
+    public void setAt(LocalDateTime at) { this.at = at; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getBroadcastId() { return broadcastId; }
+    public void setBroadcastId(String broadcastId) { this.broadcastId = broadcastId; }
+
+    public User.Role getAudienceRole() { return audienceRole; }
+    public void setAudienceRole(User.Role audienceRole) { this.audienceRole = audienceRole; }
+
+    public LocalDateTime getBroadcastCreatedAt() { return broadcastCreatedAt; }
+    public void setBroadcastCreatedAt(LocalDateTime broadcastCreatedAt) { this.broadcastCreatedAt = broadcastCreatedAt; }
+}
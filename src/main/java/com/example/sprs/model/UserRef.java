@@ -0,0 +1,37 @@
+package com.example.sprs.model;
+
+// Snapshot of the user fields shown next to a request or notification, embedded so that
+// lists can be rendered without loading the referenced users
+public class UserRef {
+    private String username;
+    private String name;
+    private String rollNo;
+    private User.Role role;
+
+    // Constructors
+    public UserRef() {}
+
+    public static UserRef of(User user) {
+        UserRef ref = new UserRef();
+        ref.setUsername(user.getUsername());
+        ref.setRole(user.getRole());
+        if (user.getProfile() != null) {
+            ref.setName(user.getProfile().getName());
+            ref.setRollNo(user.getProfile().getRollNo());
+        }
+        return ref;
+    }
+
+    // Getters and Setters
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getRollNo() { return rollNo; }
+    public void setRollNo(String rollNo) { this.rollNo = rollNo; }
+
+    public User.Role getRole() { return role; }
+    public void setRole(User.Role role) { this.role = role; }
+}
@@ -1,7 +1,6 @@
 package com.example.sprs.repository;
 
 import com.example.sprs.model.Notification;
-import com.example.sprs.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -13,16 +12,16 @@ import java.util.List;
 @Repository
 public interface NotificationRepository extends MongoRepository<Notification, String> {
 
-    Page<Notification> findByRecipientOrderByCreatedAtDesc(User recipient, Pageable pageable);
+    Page<Notification> findByRecipientIdOrderByCreatedAtDesc(String recipientId, Pageable pageable);
 
-    Page<Notification> findByRecipientAndIsReadOrderByCreatedAtDesc(User recipient, boolean isRead, Pageable pageable);
+    Page<Notification> findByRecipientIdAndIsReadOrderByCreatedAtDesc(String recipientId, boolean isRead, Pageable pageable);
 
-    List<Notification> findByRecipientAndIsReadOrderByCreatedAtDesc(User recipient, boolean isRead);
+    List<Notification> findByRecipientIdAndIsReadOrderByCreatedAtDesc(String recipientId, boolean isRead);
 
-    long countByRecipientAndIsRead(User recipient, boolean isRead);
+    long countByRecipientIdAndIsRead(String recipientId, boolean isRead);
 
-    List<Notification> findByRecipientOrderByCreatedAtDesc(User recipient);
-    List<Notification> findByRecipientAndIsReadTrueAndCreatedAtBefore(User recipient, LocalDateTime createdAt);
+    List<Notification> findByRecipientIdOrderByCreatedAtDesc(String recipientId);
+    List<Notification> findByRecipientIdAndIsReadTrueAndCreatedAtBefore(String recipientId, LocalDateTime createdAt);
 
-    void deleteByRecipientAndIsRead(User recipient, boolean isRead);
+    void deleteByRecipientIdAndIsRead(String recipientId, boolean isRead);
 }
\ No newline at end of file
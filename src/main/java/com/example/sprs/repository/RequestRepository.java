@@ -1,7 +1,6 @@
 package com.example.sprs.repository;
 
 import com.example.sprs.model.Request;
-import com.example.sprs.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,9 +9,9 @@ import java.util.List;
 @Repository
 public interface RequestRepository extends MongoRepository<Request, String> {
 
-    List<Request> findByStudent(User student);
+    List<Request> findByStudentId(String studentId);
 
-    List<Request> findByStudentAndStatus(User student, Request.Status status);
+    List<Request> findByStudentIdAndStatus(String studentId, Request.Status status);
 
     List<Request> findByStatus(Request.Status status);
 
@@ -20,13 +19,11 @@ public interface RequestRepository extends MongoRepository<Request, String> {
 
     List<Request> findByRequestType(Request.RequestType requestType);
 
-    List<Request> findByEmployeeReviewReviewedBy(String employeeId);
-
     List<Request> findByAdminReviewReviewedBy(String adminId);
 
     long countByStatus(Request.Status status);
 
     long countByRequestType(Request.RequestType requestType);
 
-    long countByStudentAndStatus(User student, Request.Status status);
+    long countByStudentIdAndStatus(String studentId, Request.Status status);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.sprs.repository;
+
+import com.example.sprs.model.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+}
@@ -1,11 +1,13 @@
 package com.example.sprs.security;
 
+import com.example.sprs.model.User;
 import com.example.sprs.service.UserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -26,6 +28,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    // "stateless" builds the principal from token claims; "lookup" loads the user document
+    @Value("${jwt.principal-mode:lookup}")
+    private String principalMode;
+
+    // Streamed and async responses finish in an ASYNC dispatch, which has to be authenticated too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getServletPath();
@@ -40,12 +58,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String requestTokenHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwtToken = null;
+        VerifiedClaims claims = null;
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwtToken);
+                claims = jwtUtil.verify(jwtToken);
+                if (tokenDenylist.isRevoked(claims.getTokenId())) {
+                    logger.warn("JWT Token has been revoked");
+                } else {
+                    username = claims.getSubject();
+                }
             } catch (IllegalArgumentException e) {
                 logger.error("Unable to get JWT Token");
             } catch (Exception e) {
@@ -56,9 +79,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userService.loadUserByUsername(username);
+            UserDetails userDetails = resolvePrincipal(claims);
 
-            if (jwtUtil.validateToken(jwtToken, userDetails)) {
+            if (userDetails != null && jwtUtil.validateToken(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -68,4 +91,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         chain.doFilter(request, response);
     }
+
+    private UserDetails resolvePrincipal(VerifiedClaims claims) {
+        // Tokens issued without a userId/role cannot be trusted on their own
+        boolean selfContained = claims.getUserId() != null && claims.getRole() != null;
+
+        if ("stateless".equals(principalMode) && selfContained) {
+            if (!tokenVersionRegistry.isCurrent(claims.getUserId(), claims.getTokenVersion())) {
+                logger.warn("JWT Token has been revoked");
+                return null;
+            }
+            return JwtPrincipal.from(claims);
+        }
+
+        UserDetails userDetails = this.userService.loadUserByUsername(claims.getSubject());
+        if (userDetails instanceof User user
+                && (!user.isActive() || user.getTokenVersion() != claims.getTokenVersion())) {
+            logger.warn("JWT Token has been revoked");
+            return null;
+        }
+        return userDetails;
+    }
 }
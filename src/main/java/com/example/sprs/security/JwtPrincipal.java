@@ -0,0 +1,43 @@
+package com.example.sprs.security;
+
+import com.example.sprs.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+// Principal built straight from verified token claims, without loading the user document
+public class JwtPrincipal implements UserDetails {
+
+    private final String userId;
+    private final String username;
+    private final User.Role role;
+
+    public JwtPrincipal(String userId, String username, User.Role role) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+    }
+
+    public static JwtPrincipal from(VerifiedClaims claims) {
+        return new JwtPrincipal(claims.getUserId(), claims.getSubject(), User.Role.valueOf(claims.getRole()));
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override public String getPassword() { return null; }
+    @Override public String getUsername() { return username; }
+    @Override public boolean isAccountNonExpired() { return true; }
+    @Override public boolean isAccountNonLocked() { return true; }
+    @Override public boolean isCredentialsNonExpired() { return true; }
+    @Override public boolean isEnabled() { return true; }
+
+    public String getUserId() { return userId; }
+
+    public User.Role getRole() { return role; }
+}
@@ -0,0 +1,134 @@
+package com.example.sprs.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token buckets per username and per client address, checked before any password hashing.
+// Buckets that have refilled completely are equivalent to new ones and are dropped by evictIdle().
+@Component
+public class LoginRateLimiter {
+
+    private final BucketGroup byUsername;
+    private final BucketGroup byAddress;
+    private final LongSupplier clock;
+
+    @Autowired
+    public LoginRateLimiter(@Value("${auth.rate-limit.username.capacity:5}") int usernameCapacity,
+                            @Value("${auth.rate-limit.username.refill-seconds:12}") long usernameRefillSeconds,
+                            @Value("${auth.rate-limit.address.capacity:30}") int addressCapacity,
+                            @Value("${auth.rate-limit.address.refill-seconds:2}") long addressRefillSeconds,
+                            MeterRegistry meterRegistry) {
+        this(usernameCapacity, Duration.ofSeconds(usernameRefillSeconds),
+                addressCapacity, Duration.ofSeconds(addressRefillSeconds),
+                meterRegistry, System::nanoTime);
+    }
+
+    LoginRateLimiter(int usernameCapacity, Duration usernameRefill,
+                     int addressCapacity, Duration addressRefill,
+                     MeterRegistry meterRegistry, LongSupplier clock) {
+        this.byUsername = new BucketGroup("username", usernameCapacity, usernameRefill, meterRegistry);
+        this.byAddress = new BucketGroup("address", addressCapacity, addressRefill, meterRegistry);
+        this.clock = clock;
+    }
+
+    // Returns 0 when the attempt is admitted, otherwise the milliseconds until a retry could succeed
+    public long tryAcquire(String username, String clientAddress) {
+        long wait = tryAcquire(clientAddress);
+        if (wait > 0) {
+            return wait;
+        }
+        return byUsername.tryAcquire(normalize(username), clock.getAsLong());
+    }
+
+    public long tryAcquire(String clientAddress) {
+        return byAddress.tryAcquire(clientAddress == null ? "unknown" : clientAddress, clock.getAsLong());
+    }
+
+    @Scheduled(fixedDelayString = "${auth.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        byUsername.evictIdle(now);
+        byAddress.evictIdle(now);
+    }
+
+    int bucketCount() {
+        return byUsername.buckets.size() + byAddress.buckets.size();
+    }
+
+    private static String normalize(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class BucketGroup {
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final Counter admitted;
+        private final Counter rejected;
+
+        BucketGroup(String scope, int capacity, Duration refillInterval, MeterRegistry meterRegistry) {
+            this.intervalNanos = refillInterval.toNanos();
+            this.burstNanos = intervalNanos * capacity;
+            this.admitted = Counter.builder("auth.ratelimit.admitted").tag("scope", scope).register(meterRegistry);
+            this.rejected = Counter.builder("auth.ratelimit.rejected").tag("scope", scope).register(meterRegistry);
+            Gauge.builder("auth.ratelimit.buckets", buckets, ConcurrentHashMap::size)
+                    .tag("scope", scope)
+                    .register(meterRegistry);
+        }
+
+        long tryAcquire(String key, long now) {
+            Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(now));
+            long waitNanos = bucket.tryAcquire(now, intervalNanos, burstNanos);
+            if (waitNanos == 0) {
+                admitted.increment();
+                return 0;
+            }
+            rejected.increment();
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+
+        void evictIdle(long now) {
+            buckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+        }
+    }
+
+    // Generic cell rate algorithm: a single CAS on the theoretical arrival time of the next token
+    private static final class Bucket {
+        private final AtomicLong nextFreeAt;
+
+        Bucket(long now) {
+            this.nextFreeAt = new AtomicLong(now);
+        }
+
+        long tryAcquire(long now, long intervalNanos, long burstNanos) {
+            while (true) {
+                long current = nextFreeAt.get();
+                long start = Math.max(current, now);
+                long next = start + intervalNanos;
+                long overshoot = next - now - burstNanos;
+                if (overshoot > 0) {
+                    return overshoot;
+                }
+                if (nextFreeAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return nextFreeAt.get() <= now;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.sprs.security;
+
+import com.example.sprs.model.RevokedToken;
+import com.example.sprs.repository.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.stream.Stream;
+
+// Revoked token ids, persisted in Mongo and fronted by an in-memory Bloom filter so the
+// common not-revoked case never leaves the process. The filter is rebuilt from storage at
+// startup and periodically, which also drops ids of tokens that have since expired. In between,
+// revocations made by other instances are tailed by revokedAt every sync interval, so a logout
+// elsewhere is honoured here within jwt.denylist.sync-interval-ms.
+@Component
+public class TokenDenylist {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylist.class);
+
+    // Tailing re-reads this far back so revocations stamped by a slightly slower clock are not missed
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(30);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${jwt.denylist.expected-size:100000}")
+    private long expectedSize;
+
+    @Value("${jwt.denylist.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    // Filter being filled by a rebuild; revocations made meanwhile are added to it as well
+    private volatile BloomFilter rebuilding;
+
+    private volatile boolean indexesEnsured;
+
+    // Revocations up to this time are in the filter
+    private volatile LocalDateTime syncedUpTo;
+
+    public void revoke(VerifiedClaims claims) {
+        if (claims.getTokenId() == null) {
+            throw new IllegalArgumentException("Token has no id and cannot be revoked");
+        }
+
+        LocalDateTime expiresAt = claims.getExpiration() == null
+                ? LocalDateTime.now()
+                : LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault());
+        revokedTokenRepository.save(new RevokedToken(claims.getTokenId(), claims.getUserId(), expiresAt));
+        put(claims.getTokenId());
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(tokenId)) {
+            return false;
+        }
+
+        // Filter not loaded yet, or a possible hit that has to be confirmed
+        return revokedTokenRepository.existsById(tokenId);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${jwt.denylist.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        try {
+            ensureIndexes();
+
+            LocalDateTime startedAt = LocalDateTime.now();
+            Query live = Query.query(Criteria.where("expiresAt").gt(LocalDateTime.now()));
+            long liveCount = mongoTemplate.count(live, RevokedToken.class);
+
+            BloomFilter next = new BloomFilter(Math.max(expectedSize, liveCount * 2), falsePositiveRate);
+            rebuilding = next;
+
+            live.fields().include("_id");
+            try (Stream<RevokedToken> revoked = mongoTemplate.stream(live, RevokedToken.class)) {
+                revoked.forEach(token -> next.put(token.getId()));
+            }
+
+            filter = next;
+            syncedUpTo = startedAt;
+            logger.debug("Rebuilt token denylist filter with {} entries", liveCount);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to rebuild token denylist filter: {}", e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.denylist.sync-interval-ms:2000}")
+    public void sync() {
+        LocalDateTime since = syncedUpTo;
+        if (filter == null || since == null) {
+            return;
+        }
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            Query recent = Query.query(Criteria.where("revokedAt").gt(since.minus(CLOCK_SKEW)));
+            recent.fields().include("_id");
+            int added = 0;
+            for (RevokedToken token : mongoTemplate.find(recent, RevokedToken.class)) {
+                put(token.getId());
+                added++;
+            }
+            syncedUpTo = startedAt;
+            logger.trace("Synced {} recent revocations into the token denylist filter", added);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to sync token denylist filter: {}", e.getMessage());
+        }
+    }
+
+    // Read the rebuilding filter before the current one so a swap in between cannot lose the id
+    private void put(String tokenId) {
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(tokenId);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(tokenId);
+        }
+    }
+
+    private void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        IndexOperations indexOps = mongoTemplate.indexOps(RevokedToken.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(RevokedToken.class)
+                .forEach(indexOps::ensureIndex);
+        indexesEnsured = true;
+    }
+}
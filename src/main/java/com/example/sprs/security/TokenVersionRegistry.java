@@ -0,0 +1,59 @@
+package com.example.sprs.security;
+
+import com.example.sprs.model.User;
+import com.example.sprs.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+
+// Current token version per user, so revoked tokens can be rejected without a lookup per request.
+// update() only reaches this instance, so entries are reloaded in the background once older than
+// refresh-seconds and never used once older than twice that: a deactivation or password change
+// made through another instance takes effect here within 2 x refresh-seconds.
+@Component
+public class TokenVersionRegistry {
+
+    // Marks a user whose tokens are no longer accepted at any version
+    private static final int REVOKED = Integer.MAX_VALUE;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${jwt.token-version.max-size:50000}")
+    private long maxSize;
+
+    @Value("${jwt.token-version.refresh-seconds:30}")
+    private long refreshSeconds;
+
+    private LoadingCache<String, Integer> versions;
+
+    @PostConstruct
+    void init() {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .expireAfterWrite(Duration.ofSeconds(refreshSeconds * 2))
+                .build(this::loadVersion);
+    }
+
+    public boolean isCurrent(String userId, int tokenVersion) {
+        Integer current = versions.get(userId);
+        return current != null && current != REVOKED && current == tokenVersion;
+    }
+
+    public void update(User user) {
+        versions.put(user.getId(), user.isActive() ? user.getTokenVersion() : REVOKED);
+    }
+
+    private Integer loadVersion(String userId) {
+        return userRepository.findById(userId)
+                .map(user -> user.isActive() ? user.getTokenVersion() : REVOKED)
+                .orElse(REVOKED);
+    }
+}
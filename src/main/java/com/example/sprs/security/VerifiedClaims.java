@@ -0,0 +1,47 @@
+package com.example.sprs.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+// Immutable view of a token whose signature has already been checked
+public final class VerifiedClaims {
+
+    private final String tokenId;
+    private final String subject;
+    private final String role;
+    private final String userId;
+    private final int tokenVersion;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    VerifiedClaims(Claims claims) {
+        this.tokenId = claims.getId();
+        this.subject = claims.getSubject();
+        this.role = claims.get("role", String.class);
+        this.userId = claims.get("userId", String.class);
+        Integer version = claims.get("tv", Integer.class);
+        this.tokenVersion = version == null ? 0 : version;
+        this.issuedAt = claims.getIssuedAt();
+        this.expiration = claims.getExpiration();
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    // Getters
+    public String getTokenId() { return tokenId; }
+
+    public String getSubject() { return subject; }
+
+    public String getRole() { return role; }
+
+    public String getUserId() { return userId; }
+
+    public int getTokenVersion() { return tokenVersion; }
+
+    public Date getIssuedAt() { return issuedAt == null ? null : new Date(issuedAt.getTime()); }
+
+    public Date getExpiration() { return expiration == null ? null : new Date(expiration.getTime()); }
+}
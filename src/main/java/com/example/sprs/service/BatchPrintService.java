@@ -0,0 +1,187 @@
+package com.example.sprs.service;
+
+import com.example.sprs.dto.BatchPrintRequestDto;
+import com.example.sprs.event.RequestEvent;
+import com.example.sprs.event.RequestEventPipeline;
+import com.example.sprs.model.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Prints many accepted requests at once: letters are streamed from a Mongo cursor straight into
+// the response, one page per letter, and only once the whole document has been written are the
+// printed requests completed with a single update. A selection by filter is capped at
+// print.batch.max-size; when it is cut short, a last page says how many requests remain.
+@Service
+public class BatchPrintService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchPrintService.class);
+
+    // Form feed: starts each letter on a new page
+    private static final String PAGE_BREAK = "\f";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private LetterRenderer letterRenderer;
+
+    @Autowired
+    private RequestEventPipeline requestEventPipeline;
+
+    @Autowired
+    private RequestCounters requestCounters;
+
+    @Value("${print.batch.max-size:500}")
+    private int maxBatchSize;
+
+    public void validate(BatchPrintRequestDto selection) {
+        if (selection.getIds() != null && selection.getIds().size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " requests can be printed at once");
+        }
+    }
+
+    // Returns the number of requests printed and completed
+    public int printAndComplete(BatchPrintRequestDto selection, String adminId, OutputStream out) throws IOException {
+        Query query = selectionQuery(selection).with(Sort.by(Sort.Direction.ASC, "createdAt")).limit(maxBatchSize);
+        query.fields().include("_id", "requestType", "formData", "submittedAt", "generatedLetter");
+
+        // Only what the completion needs is kept; each request's letter and form data go once written
+        List<Printed> printed = new ArrayList<>();
+        AtomicInteger selected = new AtomicInteger();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<Request> requests = mongoTemplate.stream(query, Request.class)) {
+            requests.forEach(request -> {
+                selected.incrementAndGet();
+                String letter = letterRenderer.render(request);
+                if (letter == null) {
+                    return;
+                }
+                try {
+                    if (!printed.isEmpty()) {
+                        writer.write(PAGE_BREAK);
+                    }
+                    writer.write(letter);
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                printed.add(new Printed(request.getId(), request.getRequestType(), RequestCounters.branchOf(request)));
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away: nothing is marked as printed
+            throw e.getCause();
+        }
+        writer.flush();
+
+        if (!printed.isEmpty()) {
+            complete(printed, adminId);
+        }
+
+        if (selected.get() >= maxBatchSize) {
+            // Completed requests have left the selection; what is still accepted is left to print
+            long remaining = mongoTemplate.count(selectionQuery(selection), Request.class);
+            if (remaining > 0) {
+                if (!printed.isEmpty()) {
+                    writer.write(PAGE_BREAK);
+                }
+                writer.write("Batch truncated at " + maxBatchSize + " requests: " + remaining
+                        + " more accepted requests match this selection. Print again to continue.\n");
+                writer.flush();
+                logger.info("Batch print for admin {} truncated, {} requests remain", adminId, remaining);
+            }
+        }
+        logger.info("Admin {} batch-printed {} requests", adminId, printed.size());
+        return printed.size();
+    }
+
+    // One update for the whole batch; the outbox entry goes in with it, as for single prints. The
+    // update tags the requests with this print's id, so re-reading them shows which ones it
+    // completed; requests another admin completed meanwhile get no second event.
+    private void complete(List<Printed> requests, String adminId) {
+        List<String> requestIds = requests.stream().map(request -> request.id).toList();
+        String printId = UUID.randomUUID().toString();
+
+        LocalDateTime now = LocalDateTime.now();
+        Request.AdminReview adminReview = new Request.AdminReview();
+        adminReview.setReviewedBy(adminId);
+        adminReview.setReviewedAt(now);
+        adminReview.setPrinted(true);
+        adminReview.setPrintedAt(now);
+        adminReview.setPrintId(printId);
+
+        Request.Status required = RequestStateMachine.requiredStatus(RequestEvent.Type.COMPLETED);
+        Query stillAccepted = Query.query(Criteria.where("_id").in(requestIds).and("status").is(required));
+        Update update = new Update()
+                .set("status", Request.Status.COMPLETED)
+                .set("adminReview", adminReview)
+                .set("updatedAt", now)
+                .push("pendingEvents", new Request.OutboxEvent(RequestEvent.Type.COMPLETED.name(), adminId));
+        mongoTemplate.updateMulti(stillAccepted, update, Request.class);
+
+        Query completedHere = Query.query(Criteria.where("_id").in(requestIds).and("adminReview.printId").is(printId));
+        completedHere.fields().include("_id");
+        Set<String> completed = new HashSet<>();
+        for (Request request : mongoTemplate.find(completedHere, Request.class)) {
+            completed.add(request.getId());
+        }
+        if (completed.size() < requestIds.size()) {
+            logger.warn("{} of {} printed requests were no longer accepted", requestIds.size() - completed.size(),
+                    requestIds.size());
+        }
+
+        // The pipeline hands these to the notification handler in batches
+        for (Printed request : requests) {
+            if (completed.contains(request.id)) {
+                requestCounters.transitioned(request.type, request.branch, required, Request.Status.COMPLETED);
+                requestEventPipeline.publish(new RequestEvent(RequestEvent.Type.COMPLETED, request.id, adminId));
+            }
+        }
+    }
+
+    private Query selectionQuery(BatchPrintRequestDto selection) {
+        Criteria criteria = Criteria.where("status").is(Request.Status.ACCEPTED);
+        if (selection.getIds() != null && !selection.getIds().isEmpty()) {
+            criteria = criteria.and("_id").in(selection.getIds());
+        }
+        if (selection.getRequestType() != null) {
+            criteria = criteria.and("requestType").is(selection.getRequestType());
+        }
+        return Query.query(criteria);
+    }
+
+    private static final class Printed {
+        private final String id;
+        private final Request.RequestType type;
+        private final String branch;
+
+        Printed(String id, Request.RequestType type, String branch) {
+            this.id = id;
+            this.type = type;
+            this.branch = branch;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.sprs.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs the independent queries behind a dashboard at the same time on a bounded pool, so the
+// response takes as long as the slowest query rather than all of them added up. Every query has
+// its own deadline. A critical section that fails or times out fails the dashboard; an optional
+// one is replaced by its fallback and listed as unavailable so the dashboard comes back partial.
+@Component
+public class DashboardAssembler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardAssembler.class);
+
+    private final ThreadPoolExecutor executor;
+    private final long queryTimeoutMs;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public DashboardAssembler(@Value("${dashboard.pool-size:8}") int poolSize,
+                              @Value("${dashboard.queue-capacity:100}") int queueCapacity,
+                              @Value("${dashboard.query-timeout-ms:2000}") long queryTimeoutMs,
+                              MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                namedThreads("dashboard-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.queryTimeoutMs = queryTimeoutMs;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("dashboard.queue.depth", executor, e -> e.getQueue().size())
+                .description("Dashboard queries waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    public Assembly begin() {
+        return new Assembly();
+    }
+
+    // One dashboard response: start every section first, then join them
+    public class Assembly {
+        private final List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+
+        public <T> CompletableFuture<T> critical(Supplier<T> query) {
+            return submit(query);
+        }
+
+        public <T> CompletableFuture<T> optional(String section, Supplier<T> query, T fallback) {
+            return submit(query).exceptionally(e -> {
+                Throwable cause = unwrap(e);
+                logger.warn("Dashboard section {} unavailable: {}", section,
+                        cause instanceof TimeoutException ? "timed out after " + queryTimeoutMs + " ms" : cause.getMessage());
+                Counter.builder("dashboard.section.unavailable")
+                        .description("Optional dashboard sections left out of a response")
+                        .tag("section", section)
+                        .register(meterRegistry)
+                        .increment();
+                unavailable.add(section);
+                return fallback;
+            });
+        }
+
+        public <T> T join(CompletableFuture<T> section) {
+            try {
+                return section.join();
+            } catch (CompletionException e) {
+                Throwable cause = unwrap(e);
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (cause instanceof TimeoutException) {
+                    throw new RuntimeException("Dashboard query timed out after " + queryTimeoutMs + " ms");
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+
+        public List<String> getUnavailable() {
+            return List.copyOf(unavailable);
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(query, executor).orTimeout(queryTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Dashboard is busy, try again shortly"));
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
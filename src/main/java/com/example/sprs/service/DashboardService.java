@@ -0,0 +1,133 @@
+package com.example.sprs.service;
+
+import com.example.sprs.dto.RequestSummary;
+import com.example.sprs.model.BroadcastReceipt;
+import com.example.sprs.model.Notification;
+import com.example.sprs.model.Request;
+import com.example.sprs.model.User;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Dashboard figures from index-backed reads only: the most recent items are a sorted, limited
+// find that walks a createdAt-ordered index and stops after the limit, and the totals come from
+// counts on the same filter, so the cost does not grow with the size of a queue or history.
+@Service
+public class DashboardService {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "_id");
+
+    // Notification indexes end in createdAt alone; adding _id would force an in-memory sort
+    private static final Sort NEWEST_NOTIFICATIONS_FIRST = Sort.by(Sort.Direction.DESC, "createdAt");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // Mongo abandons a query once the dashboard has stopped waiting for it
+    @Value("${dashboard.query-timeout-ms:2000}")
+    private long queryTimeoutMs;
+
+    public RequestStats getStudentRequestStats(String studentId, int recentLimit) {
+        Criteria match = Criteria.where("studentId").is(studentId);
+
+        // One group over the student's own requests, served from the studentId_status index
+        TypedAggregation<Request> byStatusAggregation = Aggregation.newAggregation(Request.class,
+                        Aggregation.match(match),
+                        Aggregation.group("status").count().as("count"))
+                .withOptions(AggregationOptions.builder().maxTime(Duration.ofMillis(queryTimeoutMs)).build());
+        Map<Request.Status, Long> byStatus = new EnumMap<>(Request.Status.class);
+        long total = 0;
+        for (Document document : mongoTemplate.aggregate(byStatusAggregation, Document.class).getMappedResults()) {
+            long count = document.get("count", Number.class).longValue();
+            byStatus.put(Request.Status.valueOf(document.getString("_id")), count);
+            total += count;
+        }
+        return new RequestStats(recentRequests(match, recentLimit), byStatus, total);
+    }
+
+    // A single status queue needs no grouping; its total is a count on the status index
+    public RequestStats getRequestStatsByStatus(Request.Status status, int recentLimit) {
+        Criteria match = Criteria.where("status").is(status);
+        long total = mongoTemplate.count(timed(Query.query(match)), Request.class);
+
+        Map<Request.Status, Long> byStatus = new EnumMap<>(Request.Status.class);
+        byStatus.put(status, total);
+        return new RequestStats(recentRequests(match, recentLimit), byStatus, total);
+    }
+
+    // The unread count comes from the in-memory counters the unread-count endpoint uses
+    public NotificationStats getNotificationStats(User user, int recentLimit) {
+        BroadcastReceipt receipt = notificationService.getReceipt(user);
+
+        Query query = timed(Query.query(notificationService.visibleTo(user, receipt)))
+                .with(NEWEST_NOTIFICATIONS_FIRST)
+                .limit(recentLimit);
+        List<Notification> recent = mongoTemplate.find(query, Notification.class);
+
+        return new NotificationStats(notificationService.applyReceipt(recent, receipt),
+                notificationService.getUnreadCount(user));
+    }
+
+    private List<RequestSummary> recentRequests(Criteria match, int recentLimit) {
+        Query query = timed(Query.query(match)).with(NEWEST_FIRST).limit(recentLimit);
+        // Projecting onto RequestSummary limits the fields Mongo returns to the ones it declares
+        return mongoTemplate.query(Request.class)
+                .as(RequestSummary.class)
+                .matching(query)
+                .all();
+    }
+
+    private Query timed(Query query) {
+        return query.maxTime(Duration.ofMillis(queryTimeoutMs));
+    }
+
+    public static class RequestStats {
+        private final List<RequestSummary> recent;
+        private final Map<Request.Status, Long> countsByStatus;
+        private final long total;
+
+        public RequestStats(List<RequestSummary> recent, Map<Request.Status, Long> countsByStatus, long total) {
+            this.recent = recent;
+            this.countsByStatus = countsByStatus;
+            this.total = total;
+        }
+
+        public List<RequestSummary> getRecent() { return recent; }
+
+        public Map<Request.Status, Long> getCountsByStatus() { return countsByStatus; }
+
+        public long getTotal() { return total; }
+    }
+
+    public static class NotificationStats {
+        public static final NotificationStats EMPTY = new NotificationStats(List.of(), 0);
+
+        private final List<Notification> recent;
+        private final long unreadCount;
+
+        public NotificationStats(List<Notification> recent, long unreadCount) {
+            this.recent = recent;
+            this.unreadCount = unreadCount;
+        }
+
+        public List<Notification> getRecent() { return recent; }
+
+        public long getUnreadCount() { return unreadCount; }
+    }
+}
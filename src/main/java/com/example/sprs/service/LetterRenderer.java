@@ -0,0 +1,68 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.Request;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Renders request letters on demand from templates compiled at startup: letters/<type>.txt when
+// present, otherwise letters/default.txt. A submitted request's letter never changes, so rendered
+// letters are cached by request id.
+@Component
+public class LetterRenderer {
+
+    private static final String TEMPLATE_DIR = "letters/";
+
+    private final Map<Request.RequestType, LetterTemplate> templates = new EnumMap<>(Request.RequestType.class);
+
+    @Value("${letters.cache.max-size:1000}")
+    private long cacheMaxSize;
+
+    private Cache<String, String> rendered;
+
+    @PostConstruct
+    void init() {
+        String defaultSource = load(TEMPLATE_DIR + "default.txt");
+        for (Request.RequestType type : Request.RequestType.values()) {
+            String path = TEMPLATE_DIR + type.name().toLowerCase(Locale.ROOT) + ".txt";
+            String source = new ClassPathResource(path).exists() ? load(path) : defaultSource;
+            templates.put(type, LetterTemplate.compile(source));
+        }
+
+        rendered = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+    // Letters stored by older versions are returned as they are; drafts have no letter yet
+    public String render(Request request) {
+        if (request.getGeneratedLetter() != null) {
+            return request.getGeneratedLetter();
+        }
+        if (request.getSubmittedAt() == null) {
+            return null;
+        }
+        return rendered.get(request.getId(), id -> templates.get(request.getRequestType()).render(request));
+    }
+
+    private static String load(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            // Editors add a final newline the letter itself does not end with
+            return source.endsWith("\n") ? source.substring(0, source.length() - 1) : source;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read letter template " + path, e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.Request;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+// A letter template parsed once into literal text and field lookups, so rendering is a single
+// pass that appends each part. Placeholders are written {{field}}; unknown fields are rejected
+// when the template is compiled rather than when a letter is rendered.
+final class LetterTemplate {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final Map<String, Function<Request, Object>> FIELDS = Map.ofEntries(
+            Map.entry("submittedDate", request -> formatDate(request.getSubmittedAt())),
+            Map.entry("requestType", request -> request.getRequestType().name()),
+            Map.entry("requestTypeLower", request -> request.getRequestType().name().toLowerCase(Locale.ROOT)),
+            Map.entry("name", request -> request.getFormData().getName()),
+            Map.entry("rollNo", request -> request.getFormData().getRollNo()),
+            Map.entry("branch", request -> request.getFormData().getBranch()),
+            Map.entry("section", request -> request.getFormData().getSection()),
+            Map.entry("date", request -> formatDate(request.getFormData().getDate())),
+            Map.entry("time", request -> request.getFormData().getTime()),
+            Map.entry("contact", request -> request.getFormData().getContact()),
+            Map.entry("reason", request -> request.getFormData().getReason())
+    );
+
+    private final List<Function<Request, Object>> parts;
+    private final int literalLength;
+
+    private LetterTemplate(List<Function<Request, Object>> parts, int literalLength) {
+        this.parts = parts;
+        this.literalLength = literalLength;
+    }
+
+    static LetterTemplate compile(String source) {
+        List<Function<Request, Object>> parts = new ArrayList<>();
+        int literalLength = 0;
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                open = source.length();
+            }
+            if (open > position) {
+                String literal = source.substring(position, open);
+                parts.add(request -> literal);
+                literalLength += literal.length();
+            }
+            if (open == source.length()) {
+                break;
+            }
+
+            int close = source.indexOf("}}", open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            String field = source.substring(open + 2, close).trim();
+            Function<Request, Object> lookup = FIELDS.get(field);
+            if (lookup == null) {
+                throw new IllegalArgumentException("Unknown letter field: " + field);
+            }
+            parts.add(lookup);
+            position = close + 2;
+        }
+        return new LetterTemplate(List.copyOf(parts), literalLength);
+    }
+
+    String render(Request request) {
+        StringBuilder letter = new StringBuilder(literalLength + 256);
+        for (Function<Request, Object> part : parts) {
+            Object value = part.apply(request);
+            if (value != null) {
+                letter.append(value);
+            }
+        }
+        return letter.toString();
+    }
+
+    private static String formatDate(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.format(DATE_FORMAT);
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.Notification;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Group commit for notification inserts: callers on any thread enqueue notifications and get a
+// future back, and a single flusher thread writes them as one unordered bulk insert once
+// max-size items are waiting or the oldest has waited max-delay-ms.
+@Component
+public class NotificationBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationBatchWriter.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UnreadCounters unreadCounters;
+
+    @Value("${notifications.batch.max-size:200}")
+    private int maxBatchSize;
+
+    @Value("${notifications.batch.max-delay-ms:10}")
+    private long maxDelayMs;
+
+    @Value("${notifications.batch.queue-capacity:10000}")
+    private int capacity;
+
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    private DistributionSummary batchSizeSummary;
+    private Timer flushTimer;
+
+    @PostConstruct
+    void start() {
+        batchSizeSummary = DistributionSummary.builder("notifications.batch.size")
+                .description("Notifications written per bulk insert")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("notifications.batch.flush")
+                .description("Time taken by each bulk insert")
+                .register(meterRegistry);
+        Gauge.builder("notifications.batch.queue.depth", size, AtomicInteger::get)
+                .description("Notifications waiting to be written")
+                .register(meterRegistry);
+
+        flusher = new Thread(this::runFlusher, "notification-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Completes once the notification is stored; fails straight away if the queue is full
+    public CompletableFuture<Notification> submit(Notification notification) {
+        CompletableFuture<Notification> result = new CompletableFuture<>();
+        if (!running) {
+            // Shutting down: write it on the caller's thread instead
+            write(List.of(new Pending(notification, result)));
+            return result;
+        }
+
+        int queued = size.incrementAndGet();
+        if (queued > capacity) {
+            size.decrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException("Notification writer queue is full"));
+            return result;
+        }
+
+        queue.offer(new Pending(notification, result));
+        if (queued >= maxBatchSize) {
+            LockSupport.unpark(flusher);
+        }
+        return result;
+    }
+
+    public CompletableFuture<List<Notification>> submitAll(List<Notification> notifications) {
+        List<CompletableFuture<Notification>> futures = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            futures.add(submit(notification));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(done -> notifications);
+    }
+
+    private void runFlusher() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || size.get() > 0) {
+            if (size.get() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            // Something is waiting: give other threads up to max-delay-ms to fill the batch
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+            long remaining;
+            while (running && size.get() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+
+            Pending pending;
+            while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+                batch.add(pending);
+            }
+            size.addAndGet(-batch.size());
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Notification> notifications = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            notifications.add(pending.notification);
+        }
+
+        Map<Integer, RuntimeException> failures = new HashMap<>();
+        Set<Integer> duplicates = new HashSet<>();
+        long startedAt = System.nanoTime();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class)
+                    .insert(notifications)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                // Notifications that already exist were delivered by an earlier attempt
+                if (error.getCode() == DUPLICATE_KEY) {
+                    duplicates.add(error.getIndex());
+                } else {
+                    failures.put(error.getIndex(), new RuntimeException(error.getMessage()));
+                }
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                failures.put(i, e);
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+        }
+
+        if (!failures.isEmpty()) {
+            logger.error("Failed to insert {} of {} notifications", failures.size(), batch.size());
+        }
+        List<Notification> stored = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (!failures.containsKey(i) && !duplicates.contains(i)) {
+                stored.add(batch.get(i).notification);
+            }
+        }
+        unreadCounters.created(stored);
+
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            RuntimeException failure = failures.get(i);
+            if (failure == null) {
+                pending.result.complete(pending.notification);
+            } else {
+                pending.result.completeExceptionally(failure);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Anything enqueued while the flusher was exiting is written on the shutdown thread
+        List<Pending> remaining = new ArrayList<>();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            remaining.add(pending);
+        }
+        size.addAndGet(-remaining.size());
+        write(remaining);
+    }
+
+    private static final class Pending {
+        private final Notification notification;
+        private final CompletableFuture<Notification> result;
+
+        Pending(Notification notification, CompletableFuture<Notification> result) {
+            this.notification = notification;
+            this.result = result;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.sprs.service;
 
+import com.example.sprs.model.BroadcastReceipt;
 import com.example.sprs.model.Notification;
 import com.example.sprs.model.Request;
 import com.example.sprs.model.User;
@@ -8,109 +9,337 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class NotificationService {
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt");
+
+    private static final int RECEIPT_COMPACT_THRESHOLD = 100;
+    private static final int RECEIPT_COMPACT_SCAN = 1000;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
-    public Notification createNotification(User recipient, User sender, Request request,
-                                           Notification.NotificationType type, String title, String message) {
-        Notification notification = new Notification(recipient, sender, request, type, title, message);
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NotificationBatchWriter batchWriter;
+
+    @Autowired
+    private UnreadCounters unreadCounters;
+
+    // Blocks until every notification is stored; ones that already exist count as delivered
+    public List<Notification> insertNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        logger.info("Inserting batch of {} notifications", notifications.size());
+        return batchWriter.submitAll(notifications).join();
+    }
+
+    // Status is passed explicitly because the request may have moved on by the time the notification is built
+    public Notification buildNotification(String recipientId, User sender, Request request, Request.Status status,
+                                          Notification.NotificationType type, String title, String message) {
+        Notification notification = new Notification(recipientId, sender, request, type, title, message);
 
         Notification.Metadata metadata = new Notification.Metadata(
                 request.getRequestType().name(),
-                request.getStatus().name(),
+                status.name(),
                 sender.getProfile().getName()
         );
         notification.setMetadata(metadata);
-
-        logger.info("Creating notification for recipient: {}", recipient.getUsername());
-        return notificationRepository.save(notification);
+        return notification;
     }
 
+    // Personal notifications plus broadcasts to the user's role, merged in a single query
     public Page<Notification> getUserNotifications(User user, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return notificationRepository.findByRecipientOrderByCreatedAtDesc(user, pageable);
+        BroadcastReceipt receipt = getReceipt(user);
+        return findPage(visibleTo(user, receipt), user, receipt, PageRequest.of(page, size));
     }
 
     public Page<Notification> getUnreadNotifications(User user, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return notificationRepository.findByRecipientAndIsReadOrderByCreatedAtDesc(user, false, pageable);
+        BroadcastReceipt receipt = getReceipt(user);
+        return findPage(unreadFor(user, receipt), user, receipt, PageRequest.of(page, size));
     }
 
     public List<Notification> getAllUserNotifications(User user) {
-        return notificationRepository.findByRecipientOrderByCreatedAtDesc(user);
+        BroadcastReceipt receipt = getReceipt(user);
+        Query query = Query.query(visibleTo(user, receipt)).with(NEWEST_FIRST);
+        return applyReceipt(mongoTemplate.find(query, Notification.class), receipt);
     }
 
+    // Served from memory once the user's count has been seeded
     public long getUnreadCount(User user) {
-        return notificationRepository.countByRecipientAndIsRead(user, false);
+        return unreadCounters.get(user, this::countUnread);
+    }
+
+    private long countUnread(User user) {
+        return mongoTemplate.count(Query.query(unreadFor(user, getReceipt(user))), Notification.class);
     }
 
     public Optional<Notification> findById(String notificationId) {
         return notificationRepository.findById(notificationId);
     }
 
-    public Notification markAsRead(String notificationId, String userId) {
+    public Notification markAsRead(String notificationId, User user) {
+        String userId = user.getId();
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
-        if (!notification.getRecipient().getId().equals(userId)) {
+        if (notification.isBroadcast()) {
+            checkBroadcastAccess(user, notification);
+            // Shared document: the read state lives in the user's receipt
+            if (updateReceipt(user, notification, new Update().addToSet("readIds", notificationId))) {
+                unreadCounters.removed(userId, notification);
+            }
+            notification.setRead(true);
+            return notification;
+        }
+
+        if (!userId.equals(notification.getRecipientId())) {
             logger.warn("Access denied for userId: {} on notificationId: {}", userId, notificationId);
             throw new RuntimeException("Access denied");
         }
 
-        if (!notification.isRead()) {
-            notification.markAsRead();
-            notificationRepository.save(notification);
+        // Conditional on still being unread, so concurrent calls decrement the count only once
+        notification.markAsRead();
+        long modified = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(notificationId).and("recipientId").is(userId).and("isRead").is(false)),
+                new Update().set("isRead", true).set("readAt", notification.getReadAt()),
+                Notification.class).getModifiedCount();
+        if (modified == 1) {
+            unreadCounters.removed(userId, notification);
         }
 
         return notification;
     }
 
-    @Transactional
     public void markAllAsRead(User user) {
-        List<Notification> unreadNotifications =
-                notificationRepository.findByRecipientAndIsReadOrderByCreatedAtDesc(user, false);
+        LocalDateTime now = LocalDateTime.now();
+        long updated = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("recipientId").is(user.getId()).and("isRead").is(false)),
+                new Update().set("isRead", true).set("readAt", now),
+                Notification.class).getModifiedCount();
 
-        for (Notification notification : unreadNotifications) {
-            notification.markAsRead();
+        // The watermark moves to the newest broadcast this call saw rather than the clock, since
+        // broadcasts are stamped when built and one stamped before now may not be stored yet.
+        // Every read id held before the lookup is at or below it, so those ids can go.
+        BroadcastReceipt receipt = getReceipt(user);
+        Query newest = Query.query(broadcastsFor(user, null, null)).with(NEWEST_FIRST).limit(1);
+        newest.fields().include("_id", "createdAt");
+        Notification latest = mongoTemplate.findOne(newest, Notification.class);
+        if (latest != null) {
+            Update update = new Update().max("readUpTo", latest.getCreatedAt());
+            if (receipt.getReadIds() != null && !receipt.getReadIds().isEmpty()) {
+                update.pullAll("readIds", receipt.getReadIds().toArray());
+            }
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(user.getId())), update, BroadcastReceipt.class);
         }
-
-        notificationRepository.saveAll(unreadNotifications);
-        logger.info("Marked {} notifications as read for user: {}", unreadNotifications.size(), user.getUsername());
+        unreadCounters.invalidate(user.getId());
+        logger.info("Marked {} notifications and all broadcasts as read for user: {}", updated, user.getUsername());
     }
 
-    public void deleteNotification(String notificationId, String userId) {
+    public void deleteNotification(String notificationId, User user) {
+        String userId = user.getId();
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
-        if (!notification.getRecipient().getId().equals(userId)) {
+        if (notification.isBroadcast()) {
+            checkBroadcastAccess(user, notification);
+            // Other users still see the broadcast; only hide it for this one
+            if (updateReceipt(user, notification, new Update().addToSet("dismissedIds", notificationId))) {
+                unreadCounters.removed(userId, notification);
+            }
+            logger.info("Broadcast {} dismissed for userId: {}", notificationId, userId);
+            return;
+        }
+
+        if (!userId.equals(notification.getRecipientId())) {
             logger.warn("Delete denied for userId: {} on notificationId: {}", userId, notificationId);
             throw new RuntimeException("Access denied");
         }
 
-        notificationRepository.delete(notification);
+        // The removed document says whether it was still unread; a concurrent delete removes nothing
+        Notification removed = mongoTemplate.findAndRemove(
+                Query.query(Criteria.where("_id").is(notificationId).and("recipientId").is(userId)), Notification.class);
+        if (removed != null && !removed.isRead()) {
+            unreadCounters.removed(userId, removed);
+        }
         logger.info("Notification {} deleted for userId: {}", notificationId, userId);
     }
 
     public void deleteOldReadNotifications(User user, int daysOld) {
         LocalDateTime cutoff = LocalDateTime.now().minusDays(daysOld);
         List<Notification> oldReadNotifications = notificationRepository
-                .findByRecipientAndIsReadTrueAndCreatedAtBefore(user, cutoff);
+                .findByRecipientIdAndIsReadTrueAndCreatedAtBefore(user.getId(), cutoff);
 
         notificationRepository.deleteAll(oldReadNotifications);
         logger.info("Deleted {} old read notifications for user: {}", oldReadNotifications.size(), user.getUsername());
     }
+
+    // Same rule the reads apply through broadcastsFor
+    private void checkBroadcastAccess(User user, Notification broadcast) {
+        if (!broadcast.isBroadcastTo(user.getRole(), user.getCreatedAt())) {
+            logger.warn("Access denied for userId: {} on broadcast: {}", user.getId(), broadcast.getId());
+            throw new RuntimeException("Access denied");
+        }
+    }
+
+    // Applies the update to the user's receipt; returns whether the broadcast was unread before it
+    private boolean updateReceipt(User user, Notification broadcast, Update update) {
+        BroadcastReceipt previous = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(user.getId())),
+                update, FindAndModifyOptions.options().upsert(true), BroadcastReceipt.class);
+        if (previous == null) {
+            previous = new BroadcastReceipt(user.getId());
+        }
+        compactReceipt(user, previous);
+        boolean dismissed = previous.getDismissedIds() != null && previous.getDismissedIds().contains(broadcast.getId());
+        return !dismissed && !previous.isRead(broadcast);
+    }
+
+    // readIds and dismissedIds go into every notification query, so a receipt holding many ids is
+    // compacted: readUpTo moves past the oldest broadcasts that are all read or dismissed and the
+    // read ids it now covers are dropped, as are dismissed ids of broadcasts that no longer exist.
+    // Dismissed ids behind the watermark stay; they are what keeps those broadcasts hidden.
+    private void compactReceipt(User user, BroadcastReceipt receipt) {
+        Set<String> read = receipt.getReadIds() == null ? Collections.emptySet() : receipt.getReadIds();
+        Set<String> dismissed = receipt.getDismissedIds() == null ? Collections.emptySet() : receipt.getDismissedIds();
+        if (read.size() + dismissed.size() < RECEIPT_COMPACT_THRESHOLD) {
+            return;
+        }
+
+        Query oldest = Query.query(broadcastsFor(user, receipt.getReadUpTo(), null))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .limit(RECEIPT_COMPACT_SCAN);
+        oldest.fields().include("_id", "createdAt");
+        List<Notification> broadcasts = mongoTemplate.find(oldest, Notification.class);
+
+        // The watermark must stay below the first broadcast still unread, or below the last one
+        // scanned when the scan was cut short, since another may share its createdAt
+        LocalDateTime limit = null;
+        for (Notification broadcast : broadcasts) {
+            if (!read.contains(broadcast.getId()) && !dismissed.contains(broadcast.getId())) {
+                limit = broadcast.getCreatedAt();
+                break;
+            }
+        }
+        if (limit == null && broadcasts.size() == RECEIPT_COMPACT_SCAN) {
+            limit = broadcasts.get(broadcasts.size() - 1).getCreatedAt();
+        }
+
+        LocalDateTime watermark = null;
+        List<String> covered = new ArrayList<>();
+        for (Notification broadcast : broadcasts) {
+            if (limit != null && !broadcast.getCreatedAt().isBefore(limit)) {
+                break;
+            }
+            watermark = broadcast.getCreatedAt();
+            if (read.contains(broadcast.getId())) {
+                covered.add(broadcast.getId());
+            }
+        }
+
+        Set<String> gone = new HashSet<>(dismissed);
+        if (!dismissed.isEmpty()) {
+            Query existing = Query.query(Criteria.where("_id").in(dismissed));
+            existing.fields().include("_id");
+            mongoTemplate.find(existing, Notification.class).forEach(broadcast -> gone.remove(broadcast.getId()));
+        }
+
+        Update update = new Update();
+        if (watermark != null) {
+            update.max("readUpTo", watermark);
+        }
+        if (!covered.isEmpty()) {
+            update.pullAll("readIds", covered.toArray());
+        }
+        if (!gone.isEmpty()) {
+            update.pullAll("dismissedIds", gone.toArray());
+        }
+        if (!update.getUpdateObject().isEmpty()) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(user.getId())), update, BroadcastReceipt.class);
+            logger.debug("Compacted broadcast receipt for user {}: {} read and {} dismissed ids dropped",
+                    user.getId(), covered.size(), gone.size());
+        }
+    }
+
+    BroadcastReceipt getReceipt(User user) {
+        BroadcastReceipt receipt = mongoTemplate.findById(user.getId(), BroadcastReceipt.class);
+        return receipt != null ? receipt : new BroadcastReceipt(user.getId());
+    }
+
+    private Page<Notification> findPage(Criteria criteria, User user, BroadcastReceipt receipt, Pageable pageable) {
+        Query query = Query.query(criteria).with(pageable).with(NEWEST_FIRST);
+        List<Notification> content = applyReceipt(mongoTemplate.find(query, Notification.class), receipt);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(Query.query(criteria), Notification.class));
+    }
+
+    // Broadcast documents carry no per-user read flag; fill it in from the receipt
+    List<Notification> applyReceipt(List<Notification> notifications, BroadcastReceipt receipt) {
+        for (Notification notification : notifications) {
+            if (notification.isBroadcast()) {
+                notification.setRead(receipt.isRead(notification));
+            }
+        }
+        return notifications;
+    }
+
+    Criteria visibleTo(User user, BroadcastReceipt receipt) {
+        return new Criteria().orOperator(
+                Criteria.where("recipientId").is(user.getId()),
+                broadcastsFor(user, null, receipt.getDismissedIds()));
+    }
+
+    Criteria unreadFor(User user, BroadcastReceipt receipt) {
+        Set<String> hidden = new HashSet<>();
+        if (receipt.getReadIds() != null) {
+            hidden.addAll(receipt.getReadIds());
+        }
+        if (receipt.getDismissedIds() != null) {
+            hidden.addAll(receipt.getDismissedIds());
+        }
+        return new Criteria().orOperator(
+                Criteria.where("recipientId").is(user.getId()).and("isRead").is(false),
+                broadcastsFor(user, receipt.getReadUpTo(), hidden));
+    }
+
+    // Broadcasts to the user's role created after they joined (and after readUpTo, when given)
+    private Criteria broadcastsFor(User user, LocalDateTime readUpTo, Set<String> excludedIds) {
+        Criteria criteria = Criteria.where("audienceRole").is(user.getRole());
+        LocalDateTime after = user.getCreatedAt();
+        if (readUpTo != null && (after == null || readUpTo.isAfter(after))) {
+            after = readUpTo;
+        }
+        if (after != null) {
+            criteria = criteria.and("createdAt").gt(after);
+        }
+        if (excludedIds != null && !excludedIds.isEmpty()) {
+            criteria = criteria.and("_id").nin(excludedIds);
+        }
+        return criteria;
+    }
 }
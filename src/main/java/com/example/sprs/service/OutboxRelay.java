@@ -0,0 +1,131 @@
+package com.example.sprs.service;
+
+import com.example.sprs.event.RequestEvent;
+import com.example.sprs.event.RequestEventHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Delivers outbox events the in-process pipeline did not handle, e.g. after a crash or a dropped event.
+// Only events older than the grace period are picked up, so the pipeline normally gets there first.
+// If a batch fails, its events are retried one at a time so one bad event cannot hold up the rest;
+// an event that fails max-attempts times is left on its request and no longer relayed.
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final int MAX_ROUNDS_PER_RUN = 10;
+
+    @Autowired
+    private RequestOutbox requestOutbox;
+
+    @Autowired
+    private RequestEventHandler requestEventHandler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.grace-period-ms:30000}")
+    private long gracePeriodMs;
+
+    @Value("${outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private Counter relayedCounter;
+    private Counter failedCounter;
+    private Counter abandonedCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        relayedCounter = Counter.builder("outbox.relayed")
+                .description("Outbox events delivered by the relay")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("outbox.failed")
+                .description("Outbox event deliveries that failed and will be retried")
+                .register(meterRegistry);
+        abandonedCounter = Counter.builder("outbox.abandoned")
+                .description("Outbox events given up on after max-attempts failures")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.lag", lagMillis, AtomicLong::get)
+                .description("Age in milliseconds of the oldest event found by the last relay run")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:5000}")
+    public void relay() {
+        try {
+            for (int round = 0; round < MAX_ROUNDS_PER_RUN; round++) {
+                LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(gracePeriodMs));
+                List<RequestEvent> events = requestOutbox.findPending(cutoff, maxAttempts, batchSize);
+                lagMillis.set(events.stream()
+                        .map(event -> Duration.between(event.getOccurredAt(), LocalDateTime.now()).toMillis())
+                        .max(Long::compare)
+                        .orElse(0L));
+
+                if (events.isEmpty()) {
+                    return;
+                }
+
+                int failed = deliver(events);
+                relayedCounter.increment(events.size() - failed);
+                logger.info("Relayed {} outbox events", events.size() - failed);
+
+                // Failed events would come straight back; retry them on the next run
+                if (failed > 0 || events.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Outbox relay run failed: {}", e.getMessage());
+        }
+    }
+
+    // Returns the number of events that could not be delivered
+    private int deliver(List<RequestEvent> events) {
+        try {
+            requestEventHandler.handle(events);
+            return 0;
+        } catch (RuntimeException e) {
+            logger.warn("Outbox batch of {} events failed, retrying one by one: {}", events.size(), e.getMessage());
+        }
+
+        int failed = 0;
+        for (RequestEvent event : events) {
+            try {
+                requestEventHandler.handle(List.of(event));
+            } catch (RuntimeException e) {
+                failed++;
+                failedCounter.increment();
+                int attempts = requestOutbox.recordFailure(event);
+                if (attempts >= maxAttempts) {
+                    abandonedCounter.increment();
+                    logger.error("Giving up on {} event for request {} after {} attempts: {}",
+                            event.getType(), event.getRequestId(), attempts, e.getMessage());
+                } else {
+                    logger.warn("{} event for request {} failed (attempt {}): {}",
+                            event.getType(), event.getRequestId(), attempts, e.getMessage());
+                }
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.Request;
+
+// A transition lost to a concurrent change: the request is no longer in the status it requires
+public class RequestConflictException extends RuntimeException {
+
+    private final Request.Status currentStatus;
+
+    public RequestConflictException(String message, Request.Status currentStatus) {
+        super(message);
+        this.currentStatus = currentStatus;
+    }
+
+    public Request.Status getCurrentStatus() {
+        return currentStatus;
+    }
+}
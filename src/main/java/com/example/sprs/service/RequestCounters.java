@@ -0,0 +1,363 @@
+package com.example.sprs.service;
+
+import com.example.sprs.dto.RequestCounts;
+import com.example.sprs.model.Request;
+import com.example.sprs.model.RequestCounterSnapshot;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.Fields;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Request tallies by status, and by status within each request type and branch, kept current
+// without count queries. Every create, edit, transition and delete adds to striped in-memory
+// deltas; reads are the last persisted counts plus those deltas. Deltas are pushed to the shared
+// counters document with $inc every reconcile interval, and the document is periodically
+// recounted from the requests themselves to correct any drift. One instance at a time recounts,
+// elected by a lease on the document; each recount starts a new epoch, and increments are only
+// applied in the epoch they were recorded under, so no instance re-adds what a recount has counted.
+@Component
+public class RequestCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCounters.class);
+
+    private static final String STATUS = "status";
+    private static final String TYPE = "type";
+    private static final String BRANCH = "branch";
+    private static final String SEPARATOR = ":";
+    private static final String UNKNOWN_BRANCH = "UNKNOWN";
+
+    // Long enough for any recount to finish; a crashed recounter's lease lapses after this
+    private static final Duration RECOUNT_LEASE = Duration.ofMinutes(5);
+
+    // Oldest first; the last one is the generation being written to
+    private volatile Generation current = new Generation(-1, LocalDateTime.now());
+    private final List<Generation> generations = new CopyOnWriteArrayList<>(List.of(current));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${requests.counters.recount-interval-ms:3600000}")
+    private long recountIntervalMs;
+
+    // Counts as of the last reconcile; null until first loaded
+    private volatile Map<String, Long> base;
+    private volatile LocalDateTime recountedAt;
+    private volatile LocalDateTime reconciledAt;
+
+    // The recount epoch base was read in; -1 until first loaded
+    private long epoch = -1;
+
+    public void created(Request request) {
+        add(request.getStatus(), request.getRequestType(), branchOf(request), 1);
+    }
+
+    public void deleted(Request request) {
+        add(request.getStatus(), request.getRequestType(), branchOf(request), -1);
+    }
+
+    // A draft whose request type or branch may have been edited
+    public void edited(Request.RequestType previousType, String previousBranch, Request request) {
+        add(request.getStatus(), previousType, previousBranch, -1);
+        add(request.getStatus(), request.getRequestType(), branchOf(request), 1);
+    }
+
+    public void transitioned(Request request, Request.Status from, Request.Status to) {
+        transitioned(request.getRequestType(), branchOf(request), from, to);
+    }
+
+    public void transitioned(Request.RequestType type, String branch, Request.Status from, Request.Status to) {
+        add(from, type, branch, -1);
+        add(to, type, branch, 1);
+    }
+
+    public RequestCounts getCounts() {
+        Map<String, Long> current = base;
+        if (current == null) {
+            throw new RuntimeException("Request counters are still loading");
+        }
+
+        Map<String, Long> counts = new HashMap<>(current);
+        for (Generation generation : generations) {
+            generation.deltas.forEach((field, delta) -> counts.merge(field, delta.sum(), Long::sum));
+        }
+
+        Map<Request.Status, Long> byStatus = new EnumMap<>(Request.Status.class);
+        for (Request.Status status : Request.Status.values()) {
+            byStatus.put(status, 0L);
+        }
+        Map<Request.RequestType, Map<Request.Status, Long>> byType = new EnumMap<>(Request.RequestType.class);
+        Map<String, Map<Request.Status, Long>> byBranch = new TreeMap<>();
+
+        counts.forEach((field, count) -> {
+            if (count == 0) {
+                return;
+            }
+            String[] parts = field.split(SEPARATOR);
+            switch (parts[0]) {
+                case STATUS -> byStatus.put(Request.Status.valueOf(parts[1]), count);
+                case TYPE -> byType.computeIfAbsent(Request.RequestType.valueOf(parts[1]),
+                        type -> new EnumMap<>(Request.Status.class)).put(Request.Status.valueOf(parts[2]), count);
+                case BRANCH -> byBranch.computeIfAbsent(parts[1],
+                        branch -> new EnumMap<>(Request.Status.class)).put(Request.Status.valueOf(parts[2]), count);
+                default -> logger.debug("Ignoring unknown counter {}", field);
+            }
+        });
+        return new RequestCounts(byStatus, byType, byBranch, reconciledAt);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${requests.counters.reconcile-interval-ms:5000}")
+    public void reconcile() {
+        try {
+            flush();
+            if ((recountedAt == null || recountedAt.plus(Duration.ofMillis(recountIntervalMs)).isBefore(LocalDateTime.now()))
+                    && claimRecount()) {
+                recount();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to reconcile request counters: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (base == null || generations.stream().allMatch(generation -> generation.pending().isEmpty())) {
+            return;
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to flush request counters on shutdown: {}", e.getMessage());
+        }
+    }
+
+    // Adds this instance's deltas to the shared document and picks up other instances' changes
+    private synchronized void flush() {
+        rotate(epoch);
+        RequestCounterSnapshot snapshot = mongoTemplate.findById(RequestCounterSnapshot.ID, RequestCounterSnapshot.class);
+        if (snapshot == null || snapshot.getRecountedAt() == null) {
+            // Nothing has been counted yet; deltas wait for the first recount
+            return;
+        }
+        if (snapshot.getEpoch() != epoch) {
+            adopt(snapshot);
+        }
+
+        Map<String, Long> pending = new HashMap<>();
+        Map<Generation, Map<String, Long>> pushed = new HashMap<>();
+        for (Generation generation : generations) {
+            if (generation == current) {
+                continue;
+            }
+            Map<String, Long> sums = generation.pending();
+            sums.forEach((field, sum) -> pending.merge(field, sum, Long::sum));
+            pushed.put(generation, sums);
+        }
+
+        if (!pending.isEmpty()) {
+            Update update = new Update();
+            pending.forEach((field, sum) -> update.inc("counts." + field, sum));
+            snapshot = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(RequestCounterSnapshot.ID).and("epoch").is(epoch)), update,
+                    FindAndModifyOptions.options().returnNew(true), RequestCounterSnapshot.class);
+            if (snapshot == null) {
+                // Recounted since the read above; the next flush adopts the new epoch before pushing
+                return;
+            }
+            // Only what was pushed is taken off; updates made meanwhile stay for the next flush
+            pushed.forEach(Generation::subtract);
+        }
+
+        base = Map.copyOf(snapshot.getCounts());
+        recountedAt = snapshot.getRecountedAt();
+        reconciledAt = LocalDateTime.now();
+    }
+
+    // Switches to a newer recount. Deltas recorded under an older epoch before the recount finished
+    // reading (countedAt) are covered by it and discarded, including any an in-flight writer still
+    // adds to those generations; later ones are carried into the new epoch. On the recounting
+    // instance the cut is exact. Elsewhere the one generation that straddles countedAt is discarded
+    // whole, so up to one reconcile interval of another instance's changes can be missing until
+    // the next recount, and countedAt is compared across instance clocks.
+    private void adopt(RequestCounterSnapshot snapshot) {
+        long adopted = snapshot.getEpoch();
+        LocalDateTime countedAt = snapshot.getCountedAt();
+        if (current.epoch != adopted) {
+            rotate(adopted);
+        }
+        for (Generation generation : generations) {
+            if (generation == current || generation.epoch == adopted) {
+                continue;
+            }
+            if (countedAt == null || !generation.startedAt.isBefore(countedAt)) {
+                generation.epoch = adopted;
+            } else {
+                generations.remove(generation);
+            }
+        }
+        epoch = adopted;
+        base = Map.copyOf(snapshot.getCounts());
+        recountedAt = snapshot.getRecountedAt();
+        reconciledAt = LocalDateTime.now();
+    }
+
+    // Only one instance recounts per interval: the one whose conditional upsert takes the lease
+    private boolean claimRecount() {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria due = new Criteria().orOperator(
+                Criteria.where("recountedAt").is(null),
+                Criteria.where("recountedAt").lt(now.minus(Duration.ofMillis(recountIntervalMs))));
+        Criteria free = new Criteria().orOperator(
+                Criteria.where("recountLeaseUntil").is(null),
+                Criteria.where("recountLeaseUntil").lt(now));
+        try {
+            UpdateResult result = mongoTemplate.upsert(
+                    Query.query(Criteria.where("_id").is(RequestCounterSnapshot.ID).andOperator(due, free)),
+                    new Update().set("recountLeaseUntil", now.plus(RECOUNT_LEASE)), RequestCounterSnapshot.class);
+            return result.getModifiedCount() > 0 || result.getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            // The document exists but another instance holds the lease or has just recounted
+            return false;
+        }
+    }
+
+    private synchronized void recount() {
+        TypedAggregation<Request> aggregation = Aggregation.newAggregation(Request.class,
+                Aggregation.group(Fields.from(
+                                Fields.field("status"),
+                                Fields.field("type", "requestType"),
+                                Fields.field("branch", "formData.branch")))
+                        .count().as("count"));
+
+        Map<String, Long> counts = new HashMap<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, Document.class).getMappedResults()) {
+            Document id = group.get("_id", Document.class);
+            String status = id.getString("status");
+            if (status == null) {
+                continue;
+            }
+            String type = id.getString("type");
+            long count = group.get("count", Number.class).longValue();
+            forEachField(Request.Status.valueOf(status), type == null ? null : Request.RequestType.valueOf(type),
+                    id.getString("branch"), field -> counts.merge(field, count, Long::sum));
+        }
+
+        // Changes recorded while the aggregation ran are in the current generation and are treated
+        // as counted; the ones from here on start a generation the new epoch keeps
+        LocalDateTime countedAt = LocalDateTime.now();
+        rotate(epoch);
+
+        Update update = new Update()
+                .set("counts", counts)
+                .set("countedAt", countedAt)
+                .set("recountedAt", LocalDateTime.now())
+                .inc("epoch", 1)
+                .unset("recountLeaseUntil");
+        adopt(mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(RequestCounterSnapshot.ID)), update,
+                FindAndModifyOptions.options().returnNew(true).upsert(true), RequestCounterSnapshot.class));
+        logger.info("Recounted request counters (epoch {}): {} requests", epoch, counts.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(STATUS + SEPARATOR))
+                .mapToLong(Map.Entry::getValue)
+                .sum());
+    }
+
+    // Starts a new generation tagged with the given epoch. Empty generations sealed before the
+    // current one are dropped; the one just sealed is kept until the next rotation in case a
+    // writer still holds it.
+    private void rotate(long tag) {
+        Generation sealed = current;
+        Generation next = new Generation(tag, LocalDateTime.now());
+        generations.add(next);
+        current = next;
+        generations.removeIf(generation -> generation != sealed && generation != next && generation.pending().isEmpty());
+    }
+
+    private void add(Request.Status status, Request.RequestType type, String branch, long delta) {
+        Generation generation = current;
+        forEachField(status, type, branch, field -> generation.add(field, delta));
+    }
+
+    private static void forEachField(Request.Status status, Request.RequestType type, String branch,
+                                     Consumer<String> action) {
+        if (status == null) {
+            return;
+        }
+        action.accept(STATUS + SEPARATOR + status);
+        if (type != null) {
+            action.accept(TYPE + SEPARATOR + type + SEPARATOR + status);
+        }
+        action.accept(BRANCH + SEPARATOR + normalizeBranch(branch) + SEPARATOR + status);
+    }
+
+    static String branchOf(Request request) {
+        return request.getFormData() == null ? null : request.getFormData().getBranch();
+    }
+
+    // Branches are typed in by students; fold case and drop characters Mongo field names cannot hold
+    private static String normalizeBranch(String branch) {
+        if (branch == null || branch.isBlank()) {
+            return UNKNOWN_BRANCH;
+        }
+        return branch.trim().toUpperCase(Locale.ROOT).replaceAll("[.$:]", "_");
+    }
+
+    // Deltas made between two rotations, tagged with the epoch they were recorded under and when
+    // they started, so a recount can tell which of them it has already counted
+    private static final class Generation {
+        private final LocalDateTime startedAt;
+        private final ConcurrentHashMap<String, LongAdder> deltas = new ConcurrentHashMap<>();
+
+        // Only changed by adopt, under the lock
+        private long epoch;
+
+        Generation(long epoch, LocalDateTime startedAt) {
+            this.epoch = epoch;
+            this.startedAt = startedAt;
+        }
+
+        void add(String field, long delta) {
+            deltas.computeIfAbsent(field, f -> new LongAdder()).add(delta);
+        }
+
+        Map<String, Long> pending() {
+            Map<String, Long> sums = new HashMap<>();
+            deltas.forEach((field, delta) -> {
+                long sum = delta.sum();
+                if (sum != 0) {
+                    sums.put(field, sum);
+                }
+            });
+            return sums;
+        }
+
+        void subtract(Map<String, Long> pushed) {
+            pushed.forEach((field, sum) -> deltas.get(field).add(-sum));
+        }
+    }
+}
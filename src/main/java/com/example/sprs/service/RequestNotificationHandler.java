@@ -0,0 +1,112 @@
+package com.example.sprs.service;
+
+import com.example.sprs.event.RequestEvent;
+import com.example.sprs.event.RequestEventHandler;
+import com.example.sprs.model.Notification;
+import com.example.sprs.model.Request;
+import com.example.sprs.model.User;
+import com.example.sprs.repository.RequestRepository;
+import com.example.sprs.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Turns a batch of request events into notifications, loading what it needs once per batch,
+// writing all resulting notifications with a single insert and then clearing the outbox entries
+@Component
+public class RequestNotificationHandler implements RequestEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestNotificationHandler.class);
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private RequestOutbox requestOutbox;
+
+    @Override
+    public void handle(List<RequestEvent> events) {
+        Set<String> requestIds = new HashSet<>();
+        Set<String> actorIds = new HashSet<>();
+        for (RequestEvent event : events) {
+            requestIds.add(event.getRequestId());
+            actorIds.add(event.getActorId());
+        }
+
+        Map<String, Request> requests = new HashMap<>();
+        requestRepository.findAllById(requestIds).forEach(request -> requests.put(request.getId(), request));
+        Map<String, User> actors = new HashMap<>();
+        userRepository.findAllById(actorIds).forEach(user -> actors.put(user.getId(), user));
+
+        List<Notification> notifications = new ArrayList<>();
+
+        for (RequestEvent event : events) {
+            Request request = requests.get(event.getRequestId());
+            User actor = actors.get(event.getActorId());
+            if (request == null || actor == null) {
+                logger.warn("Skipping {} event for request {}: request or actor no longer exists",
+                        event.getType(), event.getRequestId());
+                continue;
+            }
+
+            String requestType = request.getRequestType().name().toLowerCase();
+            switch (event.getType()) {
+                case SUBMITTED -> notifications.add(broadcast(User.Role.EMPLOYEE, actor, request, event,
+                        "New " + request.getRequestType() + " Request",
+                        "A new " + requestType + " request has been submitted by "
+                                + request.getFormData().getName()));
+                case ACCEPTED -> {
+                    notifications.add(build(request.getStudentId(), actor, request, event,
+                            "Request Accepted",
+                            "Your request has been accepted and forwarded to admin."));
+                    notifications.add(broadcast(User.Role.ADMIN, actor, request, event,
+                            "Approved " + request.getRequestType() + " Request",
+                            "A " + requestType + " request has been approved and needs admin review"));
+                }
+                case REJECTED -> notifications.add(build(request.getStudentId(), actor, request, event,
+                        "Request Rejected",
+                        "Your request has been rejected. Reason: " + request.getRejectionReason()));
+                case COMPLETED -> notifications.add(build(request.getStudentId(), actor, request, event,
+                        "Request Completed",
+                        "Your request has been processed and completed."));
+            }
+        }
+
+        notificationService.insertNotifications(notifications);
+        requestOutbox.markDone(events);
+    }
+
+    private Notification build(String recipientId, User actor, Request request, RequestEvent event,
+                               String title, String message) {
+        Notification notification = notificationService.buildNotification(recipientId, actor, request,
+                event.getType().getResultingStatus(), event.getType().getNotificationType(), title, message);
+        // Deterministic id: delivering the same event twice (pipeline and relay) cannot duplicate it
+        if (recipientId != null) {
+            notification.setId(event.getKey() + ":" + recipientId);
+        }
+        return notification;
+    }
+
+    // Stored once for the whole role; each user's read state is kept in their broadcast receipt
+    private Notification broadcast(User.Role role, User actor, Request request, RequestEvent event,
+                                   String title, String message) {
+        Notification notification = build(null, actor, request, event, title, message);
+        notification.setAudienceRole(role);
+        notification.setId(event.getKey() + ":" + role);
+        return notification;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.sprs.service;
+
+import com.example.sprs.event.RequestEvent;
+import com.example.sprs.model.Request;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Access to the outbox entries stored on request documents (Request.pendingEvents)
+@Component
+public class RequestOutbox {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Pending events created before the cutoff from at most `limit` requests, leaving out entries
+    // that have already failed maxAttempts times. The range scan on the pendingEvents.createdAt
+    // index already returns the oldest first, so no sort is requested that could turn into an
+    // in-memory sort over an array field
+    public List<RequestEvent> findPending(LocalDateTime createdBefore, int maxAttempts, int limit) {
+        Query query = Query.query(Criteria.where("pendingEvents")
+                        .elemMatch(Criteria.where("createdAt").lt(createdBefore).and("attempts").not().gte(maxAttempts)))
+                .limit(limit);
+        query.fields().include("_id").include("pendingEvents");
+
+        List<RequestEvent> events = new ArrayList<>();
+        for (Request request : mongoTemplate.find(query, Request.class)) {
+            for (Request.OutboxEvent entry : request.getPendingEvents()) {
+                if (entry.getCreatedAt() != null && entry.getCreatedAt().isBefore(createdBefore)
+                        && entry.getAttempts() < maxAttempts) {
+                    events.add(RequestEvent.fromOutbox(request.getId(), entry));
+                }
+            }
+        }
+        return events;
+    }
+
+    public void markDone(Collection<RequestEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Request.class);
+        for (RequestEvent event : events) {
+            bulk.updateOne(
+                    Query.query(Criteria.where("_id").is(event.getRequestId())),
+                    new Update().pull("pendingEvents", new Document("type", event.getType().name())));
+        }
+        bulk.execute();
+    }
+
+    // Returns the number of failed attempts including this one
+    public int recordFailure(RequestEvent event) {
+        Query query = Query.query(Criteria.where("_id").is(event.getRequestId()));
+        query.fields().include("pendingEvents");
+        Update update = new Update().inc("pendingEvents.$[entry].attempts", 1)
+                .filterArray(Criteria.where("entry.type").is(event.getType().name()));
+        Request request = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Request.class);
+        if (request == null || request.getPendingEvents() == null) {
+            return 0;
+        }
+        for (Request.OutboxEvent entry : request.getPendingEvents()) {
+            if (event.getType().name().equals(entry.getType())) {
+                return entry.getAttempts();
+            }
+        }
+        return 0;
+    }
+}
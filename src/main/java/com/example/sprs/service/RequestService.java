@@ -1,20 +1,39 @@
 package com.example.sprs.service;
 
-import com.example.sprs.model.Notification;
+import com.example.sprs.dto.BulkReviewResult;
+import com.example.sprs.dto.CursorPage;
+import com.example.sprs.dto.RequestSummary;
+import com.example.sprs.event.RequestEvent;
+import com.example.sprs.event.RequestEventPipeline;
 import com.example.sprs.model.Request;
 import com.example.sprs.model.User;
 import com.example.sprs.repository.RequestRepository;
 import com.example.sprs.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class RequestService {
 
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "_id");
+
     @Autowired
     private RequestRepository requestRepository;
 
@@ -22,7 +41,25 @@ public class RequestService {
     private UserRepository userRepository;
 
     @Autowired
-    private NotificationService notificationService;
+    private RequestEventPipeline requestEventPipeline;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private LetterRenderer letterRenderer;
+
+    @Autowired
+    private RequestStateMachine stateMachine;
+
+    @Autowired
+    private RequestCounters requestCounters;
+
+    @Value("${requests.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${requests.bulk-review.max-size:200}")
+    private int maxBulkReviewSize;
 
     public Request createRequest(String studentId, Request request) {
         User student = userRepository.findById(studentId)
@@ -31,184 +68,165 @@ public class RequestService {
         request.setStatus(Request.Status.DRAFT);
         request.setCreatedAt(LocalDateTime.now());
         request.setUpdatedAt(LocalDateTime.now());
-        return requestRepository.save(request);
+        Request created = requestRepository.save(request);
+        requestCounters.created(created);
+        return created;
     }
 
     public Optional<Request> findById(String requestId) {
         return requestRepository.findById(requestId);
     }
 
-    public List<Request> getStudentRequests(String studentId) {
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-        return requestRepository.findByStudent(student);
+    // For the detail endpoints: the full request with its letter filled in
+    public Optional<Request> findByIdWithLetter(String requestId) {
+        return requestRepository.findById(requestId).map(request -> {
+            request.setGeneratedLetter(letterRenderer.render(request));
+            return request;
+        });
     }
 
-    public List<Request> getStudentRequestsByStatus(String studentId, Request.Status status) {
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-        return requestRepository.findByStudentAndStatus(student, status);
+    public CursorPage<RequestSummary> getStudentRequests(String studentId, String cursor, int size) {
+        return findPage(Criteria.where("studentId").is(studentId), cursor, size);
     }
 
-    public Request updateRequest(String requestId, String studentId, Request updatedRequest) {
-        Request request = requestRepository.findById(requestId)
-                .orElseThrow(() -> new RuntimeException("Request not found"));
-
-        if (!request.getStudent().getId().equals(studentId)) {
-            throw new RuntimeException("Access denied");
-        }
+    public CursorPage<RequestSummary> getStudentRequestsByStatus(String studentId, Request.Status status,
+                                                                 String cursor, int size) {
+        return findPage(Criteria.where("studentId").is(studentId).and("status").is(status), cursor, size);
+    }
 
-        if (request.getStatus() != Request.Status.DRAFT) {
+    // Only matches while the request is still the student's draft, so an edit racing a submit
+    // cannot write the draft status back over the submitted request
+    public Request updateRequest(String requestId, String studentId, Request updatedRequest) {
+        LocalDateTime now = LocalDateTime.now();
+        Query draft = Query.query(Criteria.where("_id").is(requestId)
+                .and("studentId").is(studentId)
+                .and("status").is(Request.Status.DRAFT));
+        Update update = new Update()
+                .set("requestType", updatedRequest.getRequestType())
+                .set("formData", updatedRequest.getFormData())
+                .set("updatedAt", now);
+
+        Request request = mongoTemplate.findAndModify(draft, update, Request.class);
+        if (request == null) {
+            Request current = requestRepository.findById(requestId)
+                    .orElseThrow(() -> new RuntimeException("Request not found"));
+            if (!studentId.equals(current.getStudentId())) {
+                throw new RuntimeException("Access denied");
+            }
             throw new RuntimeException("Cannot update submitted request");
         }
 
+        // findAndModify returned the document as it was before the edit
+        Request.RequestType previousType = request.getRequestType();
+        String previousBranch = RequestCounters.branchOf(request);
         request.setRequestType(updatedRequest.getRequestType());
         request.setFormData(updatedRequest.getFormData());
-        request.setUpdatedAt(LocalDateTime.now());
+        request.setUpdatedAt(now);
 
-        return requestRepository.save(request);
+        requestCounters.edited(previousType, previousBranch, request);
+        return request;
     }
 
     public Request generateAndSubmitLetter(String requestId, String studentId) {
-        Request request = requestRepository.findById(requestId)
-                .orElseThrow(() -> new RuntimeException("Request not found"));
-
-        if (!request.getStudent().getId().equals(studentId)) {
-            throw new RuntimeException("Access denied");
-        }
-
-        if (request.getStatus() != Request.Status.DRAFT) {
-            throw new RuntimeException("Request already submitted");
-        }
-
-        request.generateLetter();
-        request.setStatus(Request.Status.PENDING);
-        request.setUpdatedAt(LocalDateTime.now());
-
-        Request savedRequest = requestRepository.save(request);
-
-        List<User> employees = userRepository.findByRoleAndIsActive(User.Role.EMPLOYEE, true);
-        for (User employee : employees) {
-            notificationService.createNotification(
-                    employee,
-                    request.getStudent(),
-                    savedRequest,
-                    Notification.NotificationType.REQUEST_SUBMITTED,
-                    "New " + request.getRequestType() + " Request",
-                    "A new " + request.getRequestType().name().toLowerCase() +
-                            " request has been submitted by " + request.getFormData().getName()
-            );
-        }
-
-        return savedRequest;
+        // The letter is rendered from the form data when viewed, dated by submittedAt
+        Update changes = new Update().set("submittedAt", LocalDateTime.now());
+        Request submitted = stateMachine.apply(requestId, RequestEvent.Type.SUBMITTED, studentId, changes, studentId);
+        submitted.setGeneratedLetter(letterRenderer.render(submitted));
+        return submitted;
     }
 
-    public List<Request> getPendingRequestsForEmployee() {
-        return requestRepository.findByStatusOrderByCreatedAtDesc(Request.Status.PENDING);
+    public CursorPage<RequestSummary> getPendingRequestsForEmployee(String cursor, int size) {
+        return findPage(Criteria.where("status").is(Request.Status.PENDING), cursor, size);
     }
 
     public Request employeeReviewRequest(String requestId, String employeeId,
                                          String action, String comments, String rejectionReason) {
-        Request request = requestRepository.findById(requestId)
-                .orElseThrow(() -> new RuntimeException("Request not found"));
+        RequestEvent.Type transition = reviewTransition(action);
 
-        if (request.getStatus() != Request.Status.PENDING) {
-            throw new RuntimeException("Request is not in pending status");
+        Update changes = new Update().set("employeeReview", new Request.EmployeeReview(employeeId, comments, action));
+        if (transition == RequestEvent.Type.REJECTED) {
+            changes.set("rejectionReason", rejectionReason);
+        }
+        return stateMachine.apply(requestId, transition, employeeId, changes, null);
+    }
+
+    // Applies one review to many requests with a single bulk write. Each update only matches a
+    // request that is still pending and tags it with this call's batch id, so re-reading the
+    // requests afterwards shows exactly which ones this call changed.
+    public BulkReviewResult bulkEmployeeReview(List<String> requestIds, String employeeId,
+                                               String action, String comments, String rejectionReason) {
+        Set<String> ids = new LinkedHashSet<>(requestIds);
+        if (ids.size() > maxBulkReviewSize) {
+            throw new RuntimeException("At most " + maxBulkReviewSize + " requests can be reviewed at once");
         }
 
-        User employee = userRepository.findById(employeeId)
-                .orElseThrow(() -> new RuntimeException("Employee not found"));
+        RequestEvent.Type eventType = reviewTransition(action);
 
+        String batchId = UUID.randomUUID().toString();
         Request.EmployeeReview review = new Request.EmployeeReview(employeeId, comments, action);
-        request.setEmployeeReview(review);
+        review.setBatchId(batchId);
+
+        Update update = new Update()
+                .set("status", eventType.getResultingStatus())
+                .set("employeeReview", review)
+                .set("updatedAt", LocalDateTime.now())
+                .push("pendingEvents", new Request.OutboxEvent(eventType.name(), employeeId));
+        if (eventType == RequestEvent.Type.REJECTED) {
+            update.set("rejectionReason", rejectionReason);
+        }
 
-        if ("ACCEPTED".equals(action)) {
-            request.setStatus(Request.Status.ACCEPTED);
-
-            notificationService.createNotification(
-                    request.getStudent(),
-                    employee,
-                    request,
-                    Notification.NotificationType.REQUEST_ACCEPTED,
-                    "Request Accepted",
-                    "Your request has been accepted and forwarded to admin."
-            );
-
-            List<User> admins = userRepository.findByRoleAndIsActive(User.Role.ADMIN, true);
-            for (User admin : admins) {
-                notificationService.createNotification(
-                        admin,
-                        employee,
-                        request,
-                        Notification.NotificationType.REQUEST_ACCEPTED,
-                        "Approved " + request.getRequestType() + " Request",
-                        "A " + request.getRequestType().name().toLowerCase() +
-                                " request has been approved and needs admin review"
-                );
-            }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Request.class);
+        for (String id : ids) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id)
+                    .and("status").is(RequestStateMachine.requiredStatus(eventType))), update);
+        }
+        bulk.execute();
 
-        } else if ("REJECTED".equals(action)) {
-            request.setStatus(Request.Status.REJECTED);
-            request.setRejectionReason(rejectionReason);
-
-            notificationService.createNotification(
-                    request.getStudent(),
-                    employee,
-                    request,
-                    Notification.NotificationType.REQUEST_REJECTED,
-                    "Request Rejected",
-                    "Your request has been rejected. Reason: " + rejectionReason
-            );
+        Query reread = Query.query(Criteria.where("_id").in(ids));
+        reread.fields().include("_id", "status", "requestType", "formData.branch", "employeeReview.batchId");
+        Map<String, Request> current = new HashMap<>();
+        for (Request request : mongoTemplate.find(reread, Request.class)) {
+            current.put(request.getId(), request);
         }
 
-        request.setUpdatedAt(LocalDateTime.now());
-        return requestRepository.save(request);
+        List<BulkReviewResult.Item> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Request request = current.get(id);
+            if (request == null) {
+                results.add(new BulkReviewResult.Item(id, BulkReviewResult.Outcome.NOT_FOUND, null));
+            } else if (request.getEmployeeReview() != null && batchId.equals(request.getEmployeeReview().getBatchId())) {
+                results.add(new BulkReviewResult.Item(id, BulkReviewResult.Outcome.SUCCESS, request.getStatus()));
+                requestCounters.transitioned(request, RequestStateMachine.requiredStatus(eventType),
+                        eventType.getResultingStatus());
+                requestEventPipeline.publish(new RequestEvent(eventType, id, employeeId));
+            } else {
+                results.add(new BulkReviewResult.Item(id, BulkReviewResult.Outcome.CONFLICT, request.getStatus()));
+            }
+        }
+        return new BulkReviewResult(results);
     }
 
-    public List<Request> getAcceptedRequestsForAdmin() {
-        return requestRepository.findByStatusOrderByCreatedAtDesc(Request.Status.ACCEPTED);
+    public CursorPage<RequestSummary> getAcceptedRequestsForAdmin(String cursor, int size) {
+        return findPage(Criteria.where("status").is(Request.Status.ACCEPTED), cursor, size);
     }
 
     public Request markRequestAsPrinted(String requestId, String adminId) {
-        Request request = requestRepository.findById(requestId)
-                .orElseThrow(() -> new RuntimeException("Request not found"));
-
-        if (request.getStatus() != Request.Status.ACCEPTED) {
-            throw new RuntimeException("Request is not in accepted status");
-        }
-
-        User admin = userRepository.findById(adminId)
-                .orElseThrow(() -> new RuntimeException("Admin not found"));
-
+        LocalDateTime now = LocalDateTime.now();
         Request.AdminReview adminReview = new Request.AdminReview();
         adminReview.setReviewedBy(adminId);
-        adminReview.setReviewedAt(LocalDateTime.now());
+        adminReview.setReviewedAt(now);
         adminReview.setPrinted(true);
-        adminReview.setPrintedAt(LocalDateTime.now());
+        adminReview.setPrintedAt(now);
 
-        request.setAdminReview(adminReview);
-        request.setStatus(Request.Status.COMPLETED);
-        request.setUpdatedAt(LocalDateTime.now());
-
-        Request savedRequest = requestRepository.save(request);
-
-        notificationService.createNotification(
-                request.getStudent(),
-                admin,
-                savedRequest,
-                Notification.NotificationType.REQUEST_COMPLETED,
-                "Request Completed",
-                "Your request has been processed and completed."
-        );
-
-        return savedRequest;
+        Update changes = new Update().set("adminReview", adminReview);
+        return stateMachine.apply(requestId, RequestEvent.Type.COMPLETED, adminId, changes, null);
     }
 
     public void deleteRequest(String requestId, String studentId) {
         Request request = requestRepository.findById(requestId)
                 .orElseThrow(() -> new RuntimeException("Request not found"));
 
-        if (!request.getStudent().getId().equals(studentId)) {
+        if (!studentId.equals(request.getStudentId())) {
             throw new RuntimeException("Access denied");
         }
 
@@ -217,13 +235,52 @@ public class RequestService {
         }
 
         requestRepository.delete(request);
+        requestCounters.deleted(request);
+    }
+
+    public CursorPage<RequestSummary> getCompletedRequests(String cursor, int size) {
+        return findPage(Criteria.where("status").is(Request.Status.COMPLETED), cursor, size);
     }
 
-    public List<Request> getCompletedRequests() {
-        return requestRepository.findByStatusOrderByCreatedAtDesc(Request.Status.COMPLETED);
+    public CursorPage<RequestSummary> getRequestsReviewedByEmployee(String employeeId, String cursor, int size) {
+        return findPage(Criteria.where("employeeReview.reviewedBy").is(employeeId), cursor, size);
     }
 
-    public List<Request> getRequestsReviewedByEmployee(String employeeId) {
-        return requestRepository.findByEmployeeReviewReviewedBy(employeeId);
+    // Newest first, continuing strictly after the (createdAt, id) position encoded in the cursor,
+    // so each page is an index range scan no matter how deep into the list it is
+    private CursorPage<RequestSummary> findPage(Criteria filter, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+
+        Criteria criteria = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            RequestCursor position = RequestCursor.decode(cursor);
+            criteria = new Criteria().andOperator(filter, new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(position.getCreatedAt()),
+                    Criteria.where("createdAt").is(position.getCreatedAt()).and("_id").lt(position.getId())));
+        }
+
+        Query query = Query.query(criteria).with(NEWEST_FIRST).limit(limit + 1);
+        // Projecting onto RequestSummary limits the fields Mongo returns to the ones it declares
+        List<RequestSummary> requests = mongoTemplate.query(Request.class)
+                .as(RequestSummary.class)
+                .matching(query)
+                .all();
+
+        String nextCursor = null;
+        if (requests.size() > limit) {
+            requests = new ArrayList<>(requests.subList(0, limit));
+            RequestSummary last = requests.get(limit - 1);
+            nextCursor = new RequestCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(requests, nextCursor);
+    }
+
+    private static RequestEvent.Type reviewTransition(String action) {
+        if ("ACCEPTED".equals(action)) {
+            return RequestEvent.Type.ACCEPTED;
+        } else if ("REJECTED".equals(action)) {
+            return RequestEvent.Type.REJECTED;
+        }
+        throw new RuntimeException("Unknown review action: " + action);
     }
 }
@@ -0,0 +1,90 @@
+package com.example.sprs.service;
+
+import com.example.sprs.event.RequestEvent;
+import com.example.sprs.event.RequestEventPipeline;
+import com.example.sprs.model.Request;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+// The request lifecycle as a table of transitions. Each transition is one findAndModify that
+// only matches the request while it is still in the expected status, sets the new status and
+// the changed fields and appends the outbox entry, so of two concurrent attempts exactly one wins.
+@Component
+public class RequestStateMachine {
+
+    private static final Map<RequestEvent.Type, Request.Status> REQUIRED_STATUS = new EnumMap<>(RequestEvent.Type.class);
+
+    static {
+        REQUIRED_STATUS.put(RequestEvent.Type.SUBMITTED, Request.Status.DRAFT);
+        REQUIRED_STATUS.put(RequestEvent.Type.ACCEPTED, Request.Status.PENDING);
+        REQUIRED_STATUS.put(RequestEvent.Type.REJECTED, Request.Status.PENDING);
+        REQUIRED_STATUS.put(RequestEvent.Type.COMPLETED, Request.Status.ACCEPTED);
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RequestEventPipeline requestEventPipeline;
+
+    @Autowired
+    private RequestCounters requestCounters;
+
+    public static Request.Status requiredStatus(RequestEvent.Type transition) {
+        return REQUIRED_STATUS.get(transition);
+    }
+
+    // Applies the transition and returns the updated request. `changes` holds the fields that
+    // change besides the status; `ownerId`, when given, must match the request's student.
+    public Request apply(String requestId, RequestEvent.Type transition, String actorId,
+                         Update changes, String ownerId) {
+        Request.Status required = REQUIRED_STATUS.get(transition);
+
+        Criteria match = Criteria.where("_id").is(requestId).and("status").is(required);
+        if (ownerId != null) {
+            match = match.and("studentId").is(ownerId);
+        }
+
+        Update update = changes
+                .set("status", transition.getResultingStatus())
+                .set("updatedAt", LocalDateTime.now())
+                .push("pendingEvents", new Request.OutboxEvent(transition.name(), actorId));
+
+        Request updated = mongoTemplate.findAndModify(Query.query(match), update,
+                FindAndModifyOptions.options().returnNew(true), Request.class);
+        if (updated == null) {
+            throw rejection(requestId, required, ownerId);
+        }
+        requestCounters.transitioned(updated, required, transition.getResultingStatus());
+
+        // The outbox entry is already stored; publishing is only the fast path, OutboxRelay
+        // picks up anything the pipeline misses
+        requestEventPipeline.publish(new RequestEvent(transition, requestId, actorId));
+        return updated;
+    }
+
+    // Only reached when the conditional update matched nothing; works out why
+    private RuntimeException rejection(String requestId, Request.Status required, String ownerId) {
+        Query query = Query.query(Criteria.where("_id").is(requestId));
+        query.fields().include("status", "studentId");
+        Request current = mongoTemplate.findOne(query, Request.class);
+
+        if (current == null) {
+            return new RuntimeException("Request not found");
+        }
+        if (ownerId != null && !ownerId.equals(current.getStudentId())) {
+            return new RuntimeException("Access denied");
+        }
+        return new RequestConflictException(
+                "Request is " + current.getStatus() + ", expected " + required, current.getStatus());
+    }
+}
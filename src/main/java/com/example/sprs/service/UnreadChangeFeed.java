@@ -0,0 +1,66 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.UnreadChange;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Shares unread count changes between instances through the unread_changes collection. Each poll
+// re-reads a clock-skew window behind the last one so late inserts are not missed, and hands out
+// every change only once.
+@Component
+public class UnreadChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadChangeFeed.class);
+
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(30);
+
+    private final String origin = UUID.randomUUID().toString();
+
+    // Ids already handed out; kept well past the re-read window
+    private final Cache<String, Boolean> seen = Caffeine.newBuilder()
+            .expireAfterWrite(CLOCK_SKEW.multipliedBy(4))
+            .build();
+
+    private volatile LocalDateTime polledUpTo = LocalDateTime.now();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public void publish(List<UnreadChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        changes.forEach(change -> change.setOrigin(origin));
+        try {
+            mongoTemplate.insertAll(changes);
+        } catch (RuntimeException e) {
+            // Other instances catch up when the affected counts are next seeded
+            logger.warn("Failed to publish {} unread count changes: {}", changes.size(), e.getMessage());
+        }
+    }
+
+    // Changes other instances published since the last poll
+    public List<UnreadChange> poll() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Query recent = Query.query(Criteria.where("at").gt(polledUpTo.minus(CLOCK_SKEW)).and("origin").ne(origin))
+                .with(Sort.by(Sort.Direction.ASC, "at"));
+        List<UnreadChange> changes = mongoTemplate.find(recent, UnreadChange.class).stream()
+                .filter(change -> seen.asMap().putIfAbsent(change.getId(), Boolean.TRUE) == null)
+                .toList();
+        polledUpTo = startedAt;
+        return changes;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.Notification;
+import com.example.sprs.model.UnreadChange;
+import com.example.sprs.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+// Per-user unread notification counts, so polling the unread count does not query Mongo. A
+// user's count is seeded from the database on first access and then kept current as
+// notifications are stored, read and deleted. Every change is also published to the other
+// instances, which reseed that user's count (or count the new broadcast) within one sync
+// interval. Entries are bounded by size and dropped after idle-seconds without a read.
+@Component
+public class UnreadCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCounters.class);
+
+    private final Cache<String, Counter> counters;
+
+    private final UnreadChangeFeed changeFeed;
+
+    @Autowired
+    public UnreadCounters(@Value("${notifications.unread.cache.max-size:10000}") long maxSize,
+                          @Value("${notifications.unread.cache.idle-seconds:3600}") long idleSeconds,
+                          MeterRegistry meterRegistry,
+                          UnreadChangeFeed changeFeed) {
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .recordStats()
+                .build();
+        this.changeFeed = changeFeed;
+
+        CaffeineCacheMetrics.monitor(meterRegistry, counters, "notifications.unread");
+    }
+
+    public long get(User user, ToLongFunction<User> seed) {
+        return counters.get(user.getId(), id -> new Counter(user, seed.applyAsLong(user))).unread.get();
+    }
+
+    // Called once per stored notification; a broadcast counts for every cached user it reaches
+    public void created(List<Notification> notifications) {
+        List<UnreadChange> changes = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (notification.isBroadcast()) {
+                countBroadcast(notification);
+                changes.add(UnreadChange.forBroadcast(notification));
+            } else {
+                Counter counter = counters.getIfPresent(notification.getRecipientId());
+                if (counter != null) {
+                    counter.unread.incrementAndGet();
+                }
+                changes.add(UnreadChange.forUser(notification.getRecipientId()));
+            }
+        }
+        changeFeed.publish(changes);
+    }
+
+    // Called when an unread notification is read or deleted by the user
+    public void removed(String userId, Notification notification) {
+        Counter counter = counters.getIfPresent(userId);
+        if (counter != null && (!notification.isBroadcast() || counter.receives(notification))) {
+            counter.unread.updateAndGet(unread -> Math.max(0, unread - 1));
+        }
+        changeFeed.publish(List.of(UnreadChange.forUser(userId)));
+    }
+
+    // Reseeds on next access; notifications stored while marking all as read stay counted
+    public void invalidate(String userId) {
+        counters.invalidate(userId);
+        changeFeed.publish(List.of(UnreadChange.forUser(userId)));
+    }
+
+    // Other instances' changes: a user's count is reseeded on its next read, a broadcast is counted
+    @Scheduled(fixedDelayString = "${notifications.unread.sync-interval-ms:1000}")
+    public void sync() {
+        try {
+            for (UnreadChange change : changeFeed.poll()) {
+                if (change.getUserId() != null) {
+                    counters.invalidate(change.getUserId());
+                } else if (change.getBroadcastId() != null) {
+                    countBroadcast(change.toBroadcast());
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to sync unread counts: {}", e.getMessage());
+        }
+    }
+
+    private void countBroadcast(Notification broadcast) {
+        for (Counter counter : counters.asMap().values()) {
+            if (counter.receives(broadcast)) {
+                counter.unread.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Counter {
+        private final User.Role role;
+        private final LocalDateTime joinedAt;
+        private final AtomicLong unread;
+
+        Counter(User user, long unread) {
+            this.role = user.getRole();
+            this.joinedAt = user.getCreatedAt();
+            this.unread = new AtomicLong(unread);
+        }
+
+        boolean receives(Notification broadcast) {
+            return broadcast.isBroadcastTo(role, joinedAt);
+        }
+    }
+}
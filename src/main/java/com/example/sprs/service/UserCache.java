@@ -0,0 +1,133 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+// Bounded, time-limited cache of user documents by id and by username. Every caller gets its
+// own copy, so a caller that modifies and saves a user never touches the cached entry.
+@Component
+public class UserCache {
+
+    private final Cache<String, User> usersById;
+    private final Cache<String, User> usersByUsername;
+
+    @Autowired
+    public UserCache(@Value("${user.cache.max-size:10000}") long maxSize,
+                     @Value("${user.cache.ttl-seconds:300}") long ttlSeconds,
+                     MeterRegistry meterRegistry) {
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.usersByUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByUsername, "users.byUsername");
+    }
+
+    public Optional<User> getById(String id, Function<String, Optional<User>> loader) {
+        User cached = usersById.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copyOf(cached));
+        }
+        Optional<User> loaded = loader.apply(id);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    public Optional<User> getByUsername(String username, Function<String, Optional<User>> loader) {
+        User cached = usersByUsername.getIfPresent(username);
+        if (cached != null) {
+            return Optional.of(copyOf(cached));
+        }
+        Optional<User> loaded = loader.apply(username);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    public void put(User user) {
+        User cached = copyOf(user);
+        usersById.put(cached.getId(), cached);
+        usersByUsername.put(cached.getUsername(), cached);
+    }
+
+    // Applies lastLogin timestamps that were written straight to Mongo to any cached entries
+    public void lastLoginWritten(Map<String, LocalDateTime> lastLogins) {
+        lastLogins.forEach((id, lastLogin) -> {
+            User cached = usersById.asMap().computeIfPresent(id, (key, user) -> withLastLogin(user, lastLogin));
+            if (cached != null) {
+                usersByUsername.asMap().computeIfPresent(cached.getUsername(),
+                        (key, user) -> id.equals(user.getId()) ? withLastLogin(user, lastLogin) : user);
+            }
+        });
+    }
+
+    // Drops every entry for this user, including one cached under a previous username
+    public void invalidate(User user) {
+        User previous = usersById.getIfPresent(user.getId());
+        usersById.invalidate(user.getId());
+        usersByUsername.invalidate(user.getUsername());
+        if (previous != null) {
+            usersByUsername.invalidate(previous.getUsername());
+        }
+    }
+
+    private static User withLastLogin(User user, LocalDateTime lastLogin) {
+        User updated = copyOf(user);
+        updated.setLastLogin(lastLogin);
+        return updated;
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User(user.getUsername(), user.getPassword(), user.getRole(), copyOf(user.getProfile()));
+        copy.setId(user.getId());
+        copy.setActive(user.isActive());
+        copy.setLastLogin(user.getLastLogin());
+        copy.setTokenVersion(user.getTokenVersion());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
+    }
+
+    private static User.Profile copyOf(User.Profile profile) {
+        if (profile == null) {
+            return null;
+        }
+        User.Profile copy = new User.Profile();
+        copy.setName(profile.getName());
+        copy.setEmail(profile.getEmail());
+        copy.setContact(profile.getContact());
+        copy.setRollNo(profile.getRollNo());
+        copy.setBranch(profile.getBranch());
+        copy.setSection(profile.getSection());
+        copy.setDepartment(profile.getDepartment());
+        copy.setDesignation(profile.getDesignation());
+        return copy;
+    }
+
+    public CacheStats getStatsById() {
+        return usersById.stats();
+    }
+
+    public CacheStats getStatsByUsername() {
+        return usersByUsername.stats();
+    }
+}
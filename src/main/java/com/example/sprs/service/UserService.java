@@ -2,6 +2,8 @@ package com.example.sprs.service;
 
 import com.example.sprs.model.User;
 import com.example.sprs.repository.UserRepository;
+import com.example.sprs.security.PasswordHashingExecutor;
+import com.example.sprs.security.TokenVersionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -12,23 +14,36 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final UserCache userCache;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LastLoginWriter lastLoginWriter;
 
     @Autowired
     public UserService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       TokenVersionRegistry tokenVersionRegistry,
+                       UserCache userCache,
+                       PasswordHashingExecutor passwordHashingExecutor,
+                       LastLoginWriter lastLoginWriter) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.userCache = userCache;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.lastLoginWriter = lastLoginWriter;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
+        return findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 
@@ -48,27 +63,32 @@ public class UserService implements UserDetailsService {
         return userRepository.save(user);
     }
 
-    public Optional<User> authenticateUser(String username, String password, User.Role role) {
+    // The bcrypt check runs on the password hashing pool; throws RejectedExecutionException when it is saturated
+    public CompletableFuture<Optional<User>> authenticateUser(String username, String password, User.Role role) {
         Optional<User> userOpt = userRepository.findByUsernameAndRole(username, role);
 
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            if (passwordEncoder.matches(password, user.getPassword()) && user.isActive()) {
-                user.setLastLogin(LocalDateTime.now());
-                userRepository.save(user);
-                return Optional.of(user);
-            }
+        if (userOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
 
-        return Optional.empty();
+        User user = userOpt.get();
+        return passwordHashingExecutor.submit(() -> passwordEncoder.matches(password, user.getPassword()))
+                .thenApply(matches -> {
+                    if (matches && user.isActive()) {
+                        user.setLastLogin(LocalDateTime.now());
+                        lastLoginWriter.record(user.getId(), user.getLastLogin());
+                        return Optional.of(user);
+                    }
+                    return Optional.<User>empty();
+                });
     }
 
     public Optional<User> findById(String id) {
-        return userRepository.findById(id);
+        return userCache.getById(id, userRepository::findById);
     }
 
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userCache.getByUsername(username, userRepository::findByUsername);
     }
 
     public List<User> findByRole(User.Role role) {
@@ -81,7 +101,7 @@ public class UserService implements UserDetailsService {
 
     public User updateUser(User user) {
         user.setUpdatedAt(LocalDateTime.now());
-        return userRepository.save(user);
+        return writeThrough(userRepository.save(user));
     }
 
     public User updateUserProfile(String userId, User.Profile profile) {
@@ -91,7 +111,7 @@ public class UserService implements UserDetailsService {
         user.setProfile(profile);
         user.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        return writeThrough(userRepository.save(user));
     }
 
     public void deactivateUser(String userId) {
@@ -99,9 +119,11 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         user.setActive(false);
+        user.setTokenVersion(user.getTokenVersion() + 1);
         user.setUpdatedAt(LocalDateTime.now());
 
-        userRepository.save(user);
+        writeThrough(userRepository.save(user));
+        tokenVersionRegistry.update(user);
     }
 
     public void changePassword(String userId, String currentPassword, String newPassword) {
@@ -113,8 +135,16 @@ public class UserService implements UserDetailsService {
         }
 
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         user.setUpdatedAt(LocalDateTime.now());
 
-        userRepository.save(user);
+        writeThrough(userRepository.save(user));
+        tokenVersionRegistry.update(user);
+    }
+
+    private User writeThrough(User saved) {
+        userCache.invalidate(saved);
+        userCache.put(saved);
+        return saved;
     }
 }
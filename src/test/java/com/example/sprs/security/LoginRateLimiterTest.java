@@ -0,0 +1,60 @@
+package com.example.sprs.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginRateLimiterTest {
+
+	private final AtomicLong now = new AtomicLong();
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private LoginRateLimiter limiter;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		limiter = new LoginRateLimiter(3, Duration.ofSeconds(10), 100, Duration.ofSeconds(1),
+				meterRegistry, now::get);
+	}
+
+	@Test
+	void admitsBurstThenRejectsPerUsername() {
+		for (int i = 0; i < 3; i++) {
+			assertThat(limiter.tryAcquire("Alice", "10.0.0.1")).isZero();
+		}
+
+		assertThat(limiter.tryAcquire("alice ", "10.0.0.2")).isEqualTo(10_000);
+		assertThat(limiter.tryAcquire("bob", "10.0.0.1")).isZero();
+		assertThat(meterRegistry.counter("auth.ratelimit.rejected", "scope", "username").count()).isEqualTo(1);
+	}
+
+	@Test
+	void refillsOverTime() {
+		for (int i = 0; i < 3; i++) {
+			limiter.tryAcquire("alice", "10.0.0.1");
+		}
+		assertThat(limiter.tryAcquire("alice", "10.0.0.1")).isPositive();
+
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+		assertThat(limiter.tryAcquire("alice", "10.0.0.1")).isZero();
+	}
+
+	@Test
+	void evictsOnlyFullyRefilledBuckets() {
+		limiter.tryAcquire("alice", "10.0.0.1");
+		limiter.evictIdle();
+		assertThat(limiter.bucketCount()).isEqualTo(2);
+
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+		limiter.evictIdle();
+		assertThat(limiter.bucketCount()).isZero();
+	}
+}
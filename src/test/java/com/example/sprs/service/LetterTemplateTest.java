@@ -0,0 +1,37 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.Request;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LetterTemplateTest {
+
+	@Test
+	void rendersFieldsFromTheRequest() {
+		Request.FormData formData = new Request.FormData();
+		formData.setName("Asha");
+		formData.setBranch("CSE");
+		formData.setDate(LocalDateTime.of(2024, 3, 9, 10, 0));
+		Request request = new Request();
+		request.setRequestType(Request.RequestType.OUTING);
+		request.setFormData(formData);
+		request.setSubmittedAt(LocalDateTime.of(2024, 3, 1, 8, 30));
+
+		LetterTemplate template = LetterTemplate.compile(
+				"Date: {{submittedDate}}\nI am {{name}} of {{branch}}, requesting {{requestTypeLower}} on {{date}}.");
+
+		assertThat(template.render(request))
+				.isEqualTo("Date: 01/03/2024\nI am Asha of CSE, requesting outing on 09/03/2024.");
+	}
+
+	@Test
+	void rejectsUnknownFieldsWhenCompiled() {
+		assertThatThrownBy(() -> LetterTemplate.compile("Dear {{principal}}"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("principal");
+	}
+}
@@ -0,0 +1,204 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.BroadcastReceipt;
+import com.example.sprs.model.Notification;
+import com.example.sprs.model.User;
+import com.example.sprs.repository.NotificationRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationServiceTest {
+
+	private static final LocalDateTime JOINED = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+	private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+
+	private final UnreadCounters unreadCounters = mock(UnreadCounters.class);
+
+	private final NotificationService notificationService = new NotificationService();
+
+	private final User employee = user("e1", User.Role.EMPLOYEE);
+
+	private final Notification broadcast = broadcast("b1", JOINED.plusDays(2));
+
+	// The user's receipt, as the fake Mongo below sees it
+	private BroadcastReceipt stored;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(notificationService, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(notificationService, "notificationRepository", notificationRepository);
+		ReflectionTestUtils.setField(notificationService, "unreadCounters", unreadCounters);
+
+		when(notificationRepository.findById("b1")).thenReturn(Optional.of(broadcast));
+		when(mongoTemplate.findById("e1", BroadcastReceipt.class)).thenAnswer(invocation -> copy(stored));
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(BroadcastReceipt.class)))
+				.thenAnswer(invocation -> addToSet(invocation.getArgument(1)));
+		when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Notification.class)))
+				.thenReturn(UpdateResult.acknowledged(0, 0L, null));
+	}
+
+	@Test
+	void receiptReadsBroadcastsAtOrBelowTheWatermarkOrListed() {
+		BroadcastReceipt receipt = new BroadcastReceipt("e1");
+		receipt.setReadUpTo(JOINED.plusDays(2));
+		receipt.setReadIds(new HashSet<>(Set.of("b3")));
+
+		assertThat(receipt.isRead(broadcast("b1", JOINED.plusDays(1)))).isTrue();
+		assertThat(receipt.isRead(broadcast("b2", JOINED.plusDays(2)))).isTrue();
+		assertThat(receipt.isRead(broadcast("b3", JOINED.plusDays(3)))).isTrue();
+		assertThat(receipt.isRead(broadcast("b4", JOINED.plusDays(3)))).isFalse();
+	}
+
+	@Test
+	void readingABroadcastUpdatesOnlyTheReceiptAndCountsOnce() {
+		Notification read = notificationService.markAsRead("b1", employee);
+
+		assertThat(read.isRead()).isTrue();
+		assertThat(stored.getReadIds()).containsExactly("b1");
+		verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Notification.class));
+		verify(unreadCounters).removed("e1", broadcast);
+
+		notificationService.markAsRead("b1", employee);
+		verify(unreadCounters).removed("e1", broadcast);
+	}
+
+	@Test
+	void dismissingABroadcastHidesItForTheUserOnly() {
+		notificationService.deleteNotification("b1", employee);
+
+		assertThat(stored.getDismissedIds()).containsExactly("b1");
+		verify(notificationRepository, never()).delete(any());
+		verify(mongoTemplate, never()).findAndRemove(any(Query.class), eq(Notification.class));
+		verify(unreadCounters).removed("e1", broadcast);
+	}
+
+	@Test
+	void dismissingAReadBroadcastLeavesTheUnreadCountAlone() {
+		stored = new BroadcastReceipt("e1");
+		stored.setReadUpTo(broadcast.getCreatedAt());
+
+		notificationService.deleteNotification("b1", employee);
+
+		assertThat(stored.getDismissedIds()).containsExactly("b1");
+		verify(unreadCounters, never()).removed(any(), any());
+	}
+
+	@Test
+	void broadcastsToAnotherRoleCannotBeReadOrDismissed() {
+		User student = user("s1", User.Role.STUDENT);
+
+		assertThatThrownBy(() -> notificationService.markAsRead("b1", student)).hasMessage("Access denied");
+		assertThatThrownBy(() -> notificationService.deleteNotification("b1", student)).hasMessage("Access denied");
+		verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+				any(FindAndModifyOptions.class), eq(BroadcastReceipt.class));
+	}
+
+	@Test
+	void markAllAsReadMovesTheWatermarkToTheNewestBroadcastSeen() {
+		stored = new BroadcastReceipt("e1");
+		stored.setReadIds(new HashSet<>(Set.of("b1")));
+		LocalDateTime newest = JOINED.plusDays(5);
+		when(mongoTemplate.findOne(any(Query.class), eq(Notification.class))).thenReturn(broadcast("b9", newest));
+
+		notificationService.markAllAsRead(employee);
+
+		verify(mongoTemplate).findOne(argThat(query -> query.getLimit() == 1
+				&& query.getSortObject().equals(new Document("createdAt", -1))
+				&& User.Role.EMPLOYEE.equals(query.getQueryObject().get("audienceRole"))), eq(Notification.class));
+		verify(mongoTemplate).upsert(argThat(query -> "e1".equals(query.getQueryObject().get("_id"))),
+				argThat(update -> {
+					Document max = (Document) update.getUpdateObject().get("$max");
+					Document pullAll = (Document) update.getUpdateObject().get("$pullAll");
+					return max != null && newest.equals(max.get("readUpTo"))
+							&& pullAll != null && List.of("b1").equals(pullAll.get("readIds"));
+				}),
+				eq(BroadcastReceipt.class));
+		verify(unreadCounters).invalidate("e1");
+	}
+
+	@Test
+	void markAllAsReadWithoutBroadcastsLeavesTheReceiptAlone() {
+		when(mongoTemplate.findOne(any(Query.class), eq(Notification.class))).thenReturn(null);
+
+		notificationService.markAllAsRead(employee);
+
+		verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(BroadcastReceipt.class));
+		verify(unreadCounters).invalidate("e1");
+	}
+
+	// Applies the $addToSet the receipt updates use and returns the receipt as it was before
+	private BroadcastReceipt addToSet(Update update) {
+		BroadcastReceipt previous = copy(stored);
+		if (stored == null) {
+			stored = new BroadcastReceipt("e1");
+		}
+		Document addToSet = (Document) update.getUpdateObject().get("$addToSet");
+		addToSet.forEach((field, value) -> {
+			Set<String> ids = field.equals("readIds") ? stored.getReadIds() : stored.getDismissedIds();
+			if (ids == null) {
+				ids = new HashSet<>();
+			}
+			ids.add((String) value);
+			if (field.equals("readIds")) {
+				stored.setReadIds(ids);
+			} else {
+				stored.setDismissedIds(ids);
+			}
+		});
+		return previous;
+	}
+
+	private static BroadcastReceipt copy(BroadcastReceipt receipt) {
+		if (receipt == null) {
+			return null;
+		}
+		BroadcastReceipt copy = new BroadcastReceipt(receipt.getId());
+		copy.setReadUpTo(receipt.getReadUpTo());
+		copy.setReadIds(receipt.getReadIds() == null ? null : new HashSet<>(receipt.getReadIds()));
+		copy.setDismissedIds(receipt.getDismissedIds() == null ? null : new HashSet<>(receipt.getDismissedIds()));
+		return copy;
+	}
+
+	private static User user(String id, User.Role role) {
+		User user = new User();
+		user.setId(id);
+		user.setRole(role);
+		user.setCreatedAt(JOINED);
+		return user;
+	}
+
+	private static Notification broadcast(String id, LocalDateTime createdAt) {
+		Notification notification = new Notification();
+		notification.setId(id);
+		notification.setAudienceRole(User.Role.EMPLOYEE);
+		notification.setCreatedAt(createdAt);
+		return notification;
+	}
+}
@@ -0,0 +1,90 @@
+package com.example.sprs.service;
+
+import com.example.sprs.event.RequestEvent;
+import com.example.sprs.event.RequestEventHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+	private final RequestOutbox outbox = mock(RequestOutbox.class);
+
+	private final RequestEventHandler handler = mock(RequestEventHandler.class);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final OutboxRelay relay = new OutboxRelay();
+
+	private final RequestEvent good = event("r1");
+
+	private final RequestEvent bad = event("r2");
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(relay, "requestOutbox", outbox);
+		ReflectionTestUtils.setField(relay, "requestEventHandler", handler);
+		ReflectionTestUtils.setField(relay, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(relay, "batchSize", 2);
+		ReflectionTestUtils.setField(relay, "gracePeriodMs", 30_000L);
+		ReflectionTestUtils.setField(relay, "maxAttempts", 3);
+		relay.registerMetrics();
+
+		when(outbox.findPending(any(LocalDateTime.class), anyInt(), anyInt())).thenReturn(List.of(good, bad));
+		// The batch fails because of one event; delivered alone, only that one fails again
+		doThrow(new RuntimeException("handler down")).when(handler).handle(List.of(good, bad));
+		doThrow(new RuntimeException("bad event")).when(handler).handle(List.of(bad));
+	}
+
+	@Test
+	void retriesAFailedBatchOneEventAtATime() {
+		when(outbox.recordFailure(bad)).thenReturn(1);
+
+		relay.relay();
+
+		verify(handler).handle(List.of(good));
+		verify(outbox).recordFailure(bad);
+		verify(outbox, never()).recordFailure(good);
+		assertThat(count("outbox.relayed")).isEqualTo(1);
+		assertThat(count("outbox.failed")).isEqualTo(1);
+		assertThat(count("outbox.abandoned")).isZero();
+		// A full batch with a failure ends the run instead of fetching the same events again
+		verify(outbox, times(1)).findPending(any(LocalDateTime.class), anyInt(), anyInt());
+	}
+
+	@Test
+	void abandonsAnEventOnceItReachesMaxAttempts() {
+		when(outbox.recordFailure(bad)).thenReturn(2, 3);
+
+		relay.relay();
+		assertThat(count("outbox.abandoned")).isZero();
+
+		relay.relay();
+		assertThat(count("outbox.failed")).isEqualTo(2);
+		assertThat(count("outbox.abandoned")).isEqualTo(1);
+		verify(outbox, times(2)).findPending(any(LocalDateTime.class), eq(3), anyInt());
+	}
+
+	private double count(String name) {
+		return meterRegistry.get(name).counter().count();
+	}
+
+	private static RequestEvent event(String requestId) {
+		return new RequestEvent(RequestEvent.Type.SUBMITTED, requestId, "s1", LocalDateTime.now().minusMinutes(5));
+	}
+}
@@ -0,0 +1,205 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.Request;
+import com.example.sprs.model.RequestCounterSnapshot;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestCountersTest {
+
+	private static final String PENDING = "status:PENDING";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+	private final RequestCounters counters = new RequestCounters();
+
+	// The shared counters document, as the fake Mongo below sees it
+	private RequestCounterSnapshot stored;
+
+	private Supplier<List<Document>> aggregation = List::of;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(counters, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(counters, "recountIntervalMs", 3_600_000L);
+
+		when(mongoTemplate.findById(RequestCounterSnapshot.ID, RequestCounterSnapshot.class))
+				.thenAnswer(invocation -> copy(stored));
+		when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(RequestCounterSnapshot.class)))
+				.thenAnswer(invocation -> claim());
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(RequestCounterSnapshot.class)))
+				.thenAnswer(invocation -> modify(invocation.getArgument(0), invocation.getArgument(1)));
+		when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+				.thenAnswer(invocation -> new AggregationResults<>(aggregation.get(), new Document()));
+	}
+
+	@Test
+	void writeRecordedDuringTheRecountIsCountedOnce() {
+		counters.created(pending("CSE"));
+		aggregation = () -> {
+			// Lands while the recount is reading requests, which already sees it
+			counters.created(pending("CSE"));
+			return List.of(group("PENDING", "OUTING", "CSE", 2));
+		};
+
+		counters.reconcile();
+
+		assertThat(stored.getEpoch()).isEqualTo(1);
+		assertThat(pendingCount()).isEqualTo(2);
+
+		counters.created(pending("CSE"));
+		assertThat(pendingCount()).isEqualTo(3);
+		counters.reconcile();
+
+		assertThat(stored.getCounts()).containsEntry(PENDING, 3L);
+		assertThat(pendingCount()).isEqualTo(3);
+	}
+
+	@Test
+	void dropsDeltasAnotherInstancesRecountAlreadyCounted() {
+		stored = snapshot(1, 5, LocalDateTime.now().minusMinutes(1));
+		counters.reconcile();
+		counters.created(pending("CSE"));
+
+		// Another instance recounts after that write and stores its counts under a new epoch
+		stored = snapshot(2, 6, LocalDateTime.now().plusMinutes(1));
+		counters.reconcile();
+
+		assertThat(stored.getCounts()).containsEntry(PENDING, 6L);
+		assertThat(pendingCount()).isEqualTo(6);
+	}
+
+	@Test
+	void carriesDeltasRecordedAfterTheRecountIntoTheNewEpoch() {
+		stored = snapshot(1, 5, LocalDateTime.now().minusMinutes(2));
+		counters.reconcile();
+		counters.created(pending("CSE"));
+
+		// A recount that finished before the write does not include it
+		stored = snapshot(2, 5, LocalDateTime.now().minusMinutes(1));
+		counters.reconcile();
+
+		assertThat(stored.getCounts()).containsEntry(PENDING, 6L);
+		assertThat(pendingCount()).isEqualTo(6);
+	}
+
+	@Test
+	void incrementsAgainstAStaleEpochAreNotApplied() {
+		stored = snapshot(1, 5, LocalDateTime.now().minusMinutes(1));
+		counters.reconcile();
+		counters.created(pending("CSE"));
+
+		when(mongoTemplate.findById(RequestCounterSnapshot.ID, RequestCounterSnapshot.class))
+				.thenAnswer(invocation -> {
+					RequestCounterSnapshot seen = copy(stored);
+					// Recounted between this instance's read and its $inc
+					stored = snapshot(2, 6, LocalDateTime.now().plusMinutes(1));
+					return seen;
+				})
+				.thenAnswer(invocation -> copy(stored));
+		counters.reconcile();
+		assertThat(stored.getCounts()).containsEntry(PENDING, 6L);
+
+		counters.reconcile();
+		assertThat(stored.getCounts()).containsEntry(PENDING, 6L);
+		assertThat(pendingCount()).isEqualTo(6);
+	}
+
+	private long pendingCount() {
+		return counters.getCounts().getByStatus().get(Request.Status.PENDING);
+	}
+
+	private UpdateResult claim() {
+		if (stored == null) {
+			stored = new RequestCounterSnapshot();
+			return UpdateResult.acknowledged(0, 0L, new BsonString(RequestCounterSnapshot.ID));
+		}
+		return UpdateResult.acknowledged(1, 1L, null);
+	}
+
+	// Applies the $inc / $set subset RequestCounters uses, honouring an epoch condition
+	@SuppressWarnings("unchecked")
+	private RequestCounterSnapshot modify(Query query, Update update) {
+		Object epoch = query.getQueryObject().get("epoch");
+		if (stored == null || (epoch != null && ((Number) epoch).longValue() != stored.getEpoch())) {
+			return null;
+		}
+		Document inc = (Document) update.getUpdateObject().get("$inc");
+		if (inc != null) {
+			inc.forEach((field, value) -> {
+				long amount = ((Number) value).longValue();
+				if (field.equals("epoch")) {
+					stored.setEpoch(stored.getEpoch() + amount);
+				} else {
+					stored.getCounts().merge(field.substring("counts.".length()), amount, Long::sum);
+				}
+			});
+		}
+		Document set = (Document) update.getUpdateObject().get("$set");
+		if (set != null) {
+			stored.setCounts(new HashMap<>((Map<String, Long>) set.get("counts")));
+			stored.setCountedAt((LocalDateTime) set.get("countedAt"));
+			stored.setRecountedAt((LocalDateTime) set.get("recountedAt"));
+		}
+		return copy(stored);
+	}
+
+	private static RequestCounterSnapshot snapshot(long epoch, long pending, LocalDateTime countedAt) {
+		RequestCounterSnapshot snapshot = new RequestCounterSnapshot();
+		snapshot.setEpoch(epoch);
+		snapshot.setCounts(new HashMap<>(Map.of(PENDING, pending)));
+		snapshot.setCountedAt(countedAt);
+		snapshot.setRecountedAt(LocalDateTime.now());
+		return snapshot;
+	}
+
+	private static RequestCounterSnapshot copy(RequestCounterSnapshot snapshot) {
+		if (snapshot == null) {
+			return null;
+		}
+		RequestCounterSnapshot copy = new RequestCounterSnapshot();
+		copy.setEpoch(snapshot.getEpoch());
+		copy.setCounts(new HashMap<>(snapshot.getCounts()));
+		copy.setCountedAt(snapshot.getCountedAt());
+		copy.setRecountedAt(snapshot.getRecountedAt());
+		return copy;
+	}
+
+	private static Document group(String status, String type, String branch, long count) {
+		return new Document("_id", new Document("status", status).append("type", type).append("branch", branch))
+				.append("count", count);
+	}
+
+	private static Request pending(String branch) {
+		Request.FormData formData = new Request.FormData();
+		formData.setBranch(branch);
+		Request request = new Request();
+		request.setStatus(Request.Status.PENDING);
+		request.setRequestType(Request.RequestType.OUTING);
+		request.setFormData(formData);
+		return request;
+	}
+}
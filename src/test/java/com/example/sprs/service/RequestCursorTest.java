@@ -0,0 +1,43 @@
+package com.example.sprs.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCursorTest {
+
+	@Test
+	void decodesWhatItEncodes() {
+		LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123_000_000);
+
+		RequestCursor decoded = RequestCursor.decode(new RequestCursor(createdAt, "65e1a2b3c4d5e6f7a8b9c0d1").encode());
+
+		assertThat(decoded.getCreatedAt()).isEqualTo(createdAt);
+		assertThat(decoded.getId()).isEqualTo("65e1a2b3c4d5e6f7a8b9c0d1");
+	}
+
+	@Test
+	void rejectsCursorsItDidNotIssue() {
+		assertThatThrownBy(() -> RequestCursor.decode("not base64!"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid cursor");
+		assertThatThrownBy(() -> RequestCursor.decode(encode("2024-03-01T09:30")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid cursor");
+		assertThatThrownBy(() -> RequestCursor.decode(encode("2024-03-01T09:30|")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid cursor");
+		assertThatThrownBy(() -> RequestCursor.decode(encode("yesterday|65e1a2b3c4d5e6f7a8b9c0d1")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid cursor");
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,230 @@
+package com.example.sprs.service;
+
+import com.example.sprs.dto.BulkReviewResult;
+import com.example.sprs.dto.CursorPage;
+import com.example.sprs.dto.RequestSummary;
+import com.example.sprs.event.RequestEvent;
+import com.example.sprs.event.RequestEventPipeline;
+import com.example.sprs.model.Request;
+import com.example.sprs.repository.RequestRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ExecutableFindOperation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestServiceTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+	private final RequestRepository requestRepository = mock(RequestRepository.class);
+
+	private final RequestEventPipeline pipeline = mock(RequestEventPipeline.class);
+
+	private final RequestCounters counters = mock(RequestCounters.class);
+
+	private final RequestService requestService = new RequestService();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(requestService, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(requestService, "requestRepository", requestRepository);
+		ReflectionTestUtils.setField(requestService, "requestEventPipeline", pipeline);
+		ReflectionTestUtils.setField(requestService, "requestCounters", counters);
+		ReflectionTestUtils.setField(requestService, "maxPageSize", 3);
+		ReflectionTestUtils.setField(requestService, "maxBulkReviewSize", 10);
+	}
+
+	@Test
+	void updatesADraftInOneConditionalWrite() {
+		Request before = request("r1", "s1", Request.Status.DRAFT);
+		before.setRequestType(Request.RequestType.OUTING);
+		before.setFormData(formData("CSE"));
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(Request.class))).thenReturn(before);
+
+		Request edit = new Request();
+		edit.setRequestType(Request.RequestType.FEE);
+		edit.setFormData(formData("ECE"));
+		Request updated = requestService.updateRequest("r1", "s1", edit);
+
+		assertThat(updated.getRequestType()).isEqualTo(Request.RequestType.FEE);
+		assertThat(updated.getFormData()).isSameAs(edit.getFormData());
+		verify(mongoTemplate).findAndModify(argThat(query -> {
+			Document match = query.getQueryObject();
+			return "r1".equals(match.get("_id")) && "s1".equals(match.get("studentId"))
+					&& Request.Status.DRAFT.equals(match.get("status"));
+		}), any(Update.class), eq(Request.class));
+		verify(counters).edited(Request.RequestType.OUTING, "CSE", updated);
+		verify(requestRepository, never()).findById(any());
+	}
+
+	@Test
+	void explainsWhyADraftUpdateMatchedNothing() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(Request.class))).thenReturn(null);
+		when(requestRepository.findById("r1"))
+				.thenReturn(Optional.empty())
+				.thenReturn(Optional.of(request("r1", "s2", Request.Status.DRAFT)))
+				.thenReturn(Optional.of(request("r1", "s1", Request.Status.PENDING)));
+
+		assertThatThrownBy(() -> requestService.updateRequest("r1", "s1", new Request()))
+				.hasMessage("Request not found");
+		assertThatThrownBy(() -> requestService.updateRequest("r1", "s1", new Request()))
+				.hasMessage("Access denied");
+		assertThatThrownBy(() -> requestService.updateRequest("r1", "s1", new Request()))
+				.hasMessage("Cannot update submitted request");
+		verify(counters, never()).edited(any(), any(), any());
+	}
+
+	@Test
+	void pagesContinueStrictlyAfterTheCursor() {
+		List<RequestSummary> stored = IntStream.range(0, 5)
+				.mapToObj(i -> summary("r" + i, NOW.minusMinutes(i)))
+				.toList();
+		List<Query> queries = stubFind(stored);
+
+		CursorPage<RequestSummary> first = requestService.getPendingRequestsForEmployee(null, 50);
+		assertThat(first.getItems()).extracting(RequestSummary::getId).containsExactly("r0", "r1", "r2");
+		assertThat(first.getNextCursor()).isNotNull();
+		assertThat(queries.get(0).getLimit()).isEqualTo(4);
+
+		RequestCursor position = RequestCursor.decode(first.getNextCursor());
+		assertThat(position.getId()).isEqualTo("r2");
+		assertThat(position.getCreatedAt()).isEqualTo(NOW.minusMinutes(2));
+
+		CursorPage<RequestSummary> second = requestService.getPendingRequestsForEmployee(first.getNextCursor(), 50);
+		assertThat(second.getItems()).extracting(RequestSummary::getId).containsExactly("r3", "r4");
+		assertThat(second.getNextCursor()).isNull();
+	}
+
+	@Test
+	void aFullLastPageHasNoNextCursor() {
+		stubFind(List.of(summary("r0", NOW), summary("r1", NOW), summary("r2", NOW.minusMinutes(1))));
+
+		CursorPage<RequestSummary> page = requestService.getPendingRequestsForEmployee(null, 3);
+
+		assertThat(page.getItems()).hasSize(3);
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@Test
+	void bulkReviewReportsEachRequestsOutcome() {
+		BulkOperations bulk = mock(BulkOperations.class);
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Request.class)).thenReturn(bulk);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		when(mongoTemplate.find(any(Query.class), eq(Request.class))).thenAnswer(invocation -> {
+			verify(bulk, times(3)).updateOne(any(Query.class), update.capture());
+			String batchId = batchIdOf(update.getValue());
+			// r1 took this call's review, r2 was reviewed by someone else first, r3 does not exist
+			return List.of(reviewed("r1", Request.Status.ACCEPTED, batchId),
+					reviewed("r2", Request.Status.REJECTED, "another-batch"));
+		});
+
+		BulkReviewResult result = requestService.bulkEmployeeReview(List.of("r1", "r2", "r3", "r1"), "e1",
+				"ACCEPTED", "ok", null);
+
+		assertThat(result.getResults())
+				.extracting(BulkReviewResult.Item::getRequestId, BulkReviewResult.Item::getOutcome,
+						BulkReviewResult.Item::getStatus)
+				.containsExactly(
+						tuple("r1", BulkReviewResult.Outcome.SUCCESS, Request.Status.ACCEPTED),
+						tuple("r2", BulkReviewResult.Outcome.CONFLICT, Request.Status.REJECTED),
+						tuple("r3", BulkReviewResult.Outcome.NOT_FOUND, null));
+		assertThat(result.getSucceeded()).isEqualTo(1);
+		verify(bulk).execute();
+		verify(counters, times(1)).transitioned(any(Request.class), eq(Request.Status.PENDING), eq(Request.Status.ACCEPTED));
+		verify(pipeline, times(1)).publish(argThat(event ->
+				event.getRequestId().equals("r1") && event.getType() == RequestEvent.Type.ACCEPTED));
+	}
+
+	// Serves newest-first pages of `stored` honouring the cursor position and limit of each query
+	@SuppressWarnings("unchecked")
+	private List<Query> stubFind(List<RequestSummary> stored) {
+		List<Query> queries = new ArrayList<>();
+		ExecutableFindOperation.ExecutableFind<Request> find = mock(ExecutableFindOperation.ExecutableFind.class);
+		ExecutableFindOperation.FindWithQuery<RequestSummary> projected = mock(ExecutableFindOperation.FindWithQuery.class);
+		when(mongoTemplate.query(Request.class)).thenReturn(find);
+		when(find.as(RequestSummary.class)).thenReturn(projected);
+		when(projected.matching(any(Query.class))).thenAnswer(invocation -> {
+			Query query = invocation.getArgument(0);
+			queries.add(query);
+			ExecutableFindOperation.TerminatingFind<RequestSummary> terminating =
+					mock(ExecutableFindOperation.TerminatingFind.class);
+			when(terminating.all()).thenReturn(after(stored, query));
+			return terminating;
+		});
+		return queries;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<RequestSummary> after(List<RequestSummary> stored, Query query) {
+		int from = 0;
+		Object and = query.getQueryObject().get("$and");
+		if (and != null) {
+			// The cursor's id is the last one the previous page returned
+			String lastId = ((Document) ((List<Document>) ((Document) ((List<?>) and).get(1)).get("$or")).get(1)
+					.get("_id")).getString("$lt");
+			from = IntStream.range(0, stored.size()).filter(i -> stored.get(i).getId().equals(lastId)).findFirst()
+					.orElseThrow() + 1;
+		}
+		return new ArrayList<>(stored.subList(from, Math.min(stored.size(), from + query.getLimit())));
+	}
+
+	private static String batchIdOf(Update update) {
+		Document set = (Document) update.getUpdateObject().get("$set");
+		return ((Request.EmployeeReview) set.get("employeeReview")).getBatchId();
+	}
+
+	private static Request request(String id, String studentId, Request.Status status) {
+		Request request = new Request();
+		request.setId(id);
+		request.setStudentId(studentId);
+		request.setStatus(status);
+		return request;
+	}
+
+	private static Request reviewed(String id, Request.Status status, String batchId) {
+		Request.EmployeeReview review = new Request.EmployeeReview();
+		review.setBatchId(batchId);
+		Request request = request(id, "s1", status);
+		request.setEmployeeReview(review);
+		return request;
+	}
+
+	private static Request.FormData formData(String branch) {
+		Request.FormData formData = new Request.FormData();
+		formData.setBranch(branch);
+		return formData;
+	}
+
+	private static RequestSummary summary(String id, LocalDateTime createdAt) {
+		RequestSummary summary = new RequestSummary();
+		summary.setId(id);
+		summary.setCreatedAt(createdAt);
+		return summary;
+	}
+}
@@ -0,0 +1,100 @@
+package com.example.sprs.service;
+
+import com.example.sprs.event.RequestEvent;
+import com.example.sprs.event.RequestEventPipeline;
+import com.example.sprs.model.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RequestStateMachineTest {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+	private final RequestEventPipeline pipeline = mock(RequestEventPipeline.class);
+
+	private final RequestCounters counters = mock(RequestCounters.class);
+
+	private final RequestStateMachine stateMachine = new RequestStateMachine();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(stateMachine, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(stateMachine, "requestEventPipeline", pipeline);
+		ReflectionTestUtils.setField(stateMachine, "requestCounters", counters);
+	}
+
+	@Test
+	void appliesTheTransitionOnlyFromTheRequiredStatus() {
+		Request accepted = request("r1", "s1", Request.Status.ACCEPTED);
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(Request.class))).thenReturn(accepted);
+
+		Request result = stateMachine.apply("r1", RequestEvent.Type.ACCEPTED, "e1", new Update(), null);
+
+		assertThat(result).isSameAs(accepted);
+		verify(mongoTemplate).findAndModify(
+				argThat(query -> Request.Status.PENDING.equals(query.getQueryObject().get("status"))),
+				any(Update.class), any(FindAndModifyOptions.class), eq(Request.class));
+		verify(counters).transitioned(accepted, Request.Status.PENDING, Request.Status.ACCEPTED);
+		verify(pipeline).publish(argThat(event -> event.getType() == RequestEvent.Type.ACCEPTED
+				&& event.getRequestId().equals("r1") && event.getActorId().equals("e1")));
+	}
+
+	@Test
+	void reportsTheCurrentStatusWhenAnotherTransitionWonTheRace() {
+		noMatch();
+		when(mongoTemplate.findOne(any(Query.class), eq(Request.class)))
+				.thenReturn(request("r1", "s1", Request.Status.REJECTED));
+
+		assertThatThrownBy(() -> stateMachine.apply("r1", RequestEvent.Type.ACCEPTED, "e1", new Update(), null))
+				.isInstanceOfSatisfying(RequestConflictException.class, conflict ->
+						assertThat(conflict.getCurrentStatus()).isEqualTo(Request.Status.REJECTED))
+				.hasMessage("Request is REJECTED, expected PENDING");
+		verifyNoInteractions(counters, pipeline);
+	}
+
+	@Test
+	void tellsMissingAndForeignRequestsApartFromConflicts() {
+		noMatch();
+		when(mongoTemplate.findOne(any(Query.class), eq(Request.class)))
+				.thenReturn(null)
+				.thenReturn(request("r1", "s2", Request.Status.DRAFT));
+
+		assertThatThrownBy(() -> stateMachine.apply("r1", RequestEvent.Type.SUBMITTED, "s1", new Update(), "s1"))
+				.isNotInstanceOf(RequestConflictException.class)
+				.hasMessage("Request not found");
+		assertThatThrownBy(() -> stateMachine.apply("r1", RequestEvent.Type.SUBMITTED, "s1", new Update(), "s1"))
+				.isNotInstanceOf(RequestConflictException.class)
+				.hasMessage("Access denied");
+		verify(pipeline, never()).publish(any());
+	}
+
+	private void noMatch() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(Request.class))).thenReturn(null);
+	}
+
+	private static Request request(String id, String studentId, Request.Status status) {
+		Request request = new Request();
+		request.setId(id);
+		request.setStudentId(studentId);
+		request.setStatus(status);
+		return request;
+	}
+}
@@ -0,0 +1,137 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.Notification;
+import com.example.sprs.model.UnreadChange;
+import com.example.sprs.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UnreadCountersTest {
+
+	private final AtomicInteger seeds = new AtomicInteger();
+
+	private final UnreadChangeFeed changeFeed = mock(UnreadChangeFeed.class);
+
+	private UnreadCounters counters;
+
+	@BeforeEach
+	void setUp() {
+		counters = new UnreadCounters(100, 3600, new SimpleMeterRegistry(), changeFeed);
+	}
+
+	@Test
+	void seedsOnceThenTracksPersonalNotifications() {
+		User student = user("s1", User.Role.STUDENT, LocalDateTime.now().minusDays(1));
+
+		assertThat(counters.get(student, this::seed)).isEqualTo(2);
+		counters.created(List.of(personal("n1", "s1"), personal("n2", "someone-else")));
+		assertThat(counters.get(student, this::seed)).isEqualTo(3);
+
+		counters.removed("s1", personal("n1", "s1"));
+		assertThat(counters.get(student, this::seed)).isEqualTo(2);
+
+		assertThat(seeds.get()).isEqualTo(1);
+	}
+
+	@Test
+	void reseedsAfterInvalidation() {
+		User student = user("s1", User.Role.STUDENT, LocalDateTime.now().minusDays(1));
+
+		counters.get(student, this::seed);
+		counters.created(List.of(personal("n1", "s1")));
+		counters.invalidate("s1");
+		counters.removed("s1", personal("n1", "s1"));
+
+		assertThat(counters.get(student, user -> 0)).isZero();
+		assertThat(seeds.get()).isEqualTo(1);
+	}
+
+	@Test
+	void countsBroadcastsOnlyForTheRoleAndUsersWhoHadJoined() {
+		LocalDateTime sentAt = LocalDateTime.now();
+		User employee = user("e1", User.Role.EMPLOYEE, sentAt.minusDays(1));
+		User lateEmployee = user("e2", User.Role.EMPLOYEE, sentAt.plusSeconds(1));
+		User admin = user("a1", User.Role.ADMIN, sentAt.minusDays(1));
+		counters.get(employee, user -> 0);
+		counters.get(lateEmployee, user -> 0);
+		counters.get(admin, user -> 0);
+
+		Notification broadcast = broadcast("b1", User.Role.EMPLOYEE, sentAt);
+		counters.created(List.of(broadcast));
+
+		assertThat(counters.get(employee, this::seed)).isEqualTo(1);
+		assertThat(counters.get(lateEmployee, this::seed)).isZero();
+		assertThat(counters.get(admin, this::seed)).isZero();
+
+		counters.removed("a1", broadcast);
+		counters.removed("e1", broadcast);
+		assertThat(counters.get(employee, this::seed)).isZero();
+		assertThat(counters.get(admin, this::seed)).isZero();
+	}
+
+	@Test
+	void appliesChangesFromOtherInstances() {
+		LocalDateTime sentAt = LocalDateTime.now();
+		User student = user("s1", User.Role.STUDENT, sentAt.minusDays(1));
+		User employee = user("e1", User.Role.EMPLOYEE, sentAt.minusDays(1));
+		counters.get(student, this::seed);
+		counters.get(employee, user -> 0);
+
+		when(changeFeed.poll()).thenReturn(List.of(
+				UnreadChange.forUser("s1"),
+				UnreadChange.forBroadcast(broadcast("b1", User.Role.EMPLOYEE, sentAt))));
+		counters.sync();
+
+		assertThat(counters.get(employee, this::seed)).isEqualTo(1);
+		assertThat(counters.get(student, user -> 5)).isEqualTo(5);
+		assertThat(seeds.get()).isEqualTo(1);
+	}
+
+	@Test
+	void publishesLocalChangesForOtherInstances() {
+		counters.created(List.of(personal("n1", "s1")));
+		counters.invalidate("s2");
+
+		verify(changeFeed, times(2)).publish(argThat(changes -> changes.size() == 1));
+	}
+
+	private long seed(User user) {
+		seeds.incrementAndGet();
+		return 2;
+	}
+
+	private static User user(String id, User.Role role, LocalDateTime createdAt) {
+		User user = new User();
+		user.setId(id);
+		user.setRole(role);
+		user.setCreatedAt(createdAt);
+		return user;
+	}
+
+	private static Notification personal(String id, String recipientId) {
+		Notification notification = new Notification();
+		notification.setId(id);
+		notification.setRecipientId(recipientId);
+		return notification;
+	}
+
+	private static Notification broadcast(String id, User.Role role, LocalDateTime createdAt) {
+		Notification notification = new Notification();
+		notification.setId(id);
+		notification.setAudienceRole(role);
+		notification.setCreatedAt(createdAt);
+		return notification;
+	}
+}
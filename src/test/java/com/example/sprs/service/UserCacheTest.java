@@ -0,0 +1,51 @@
+package com.example.sprs.service;
+
+import com.example.sprs.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTest {
+
+	private final UserCache cache = new UserCache(100, 300, new SimpleMeterRegistry());
+
+	@Test
+	void handsEachCallerItsOwnCopy() {
+		cache.put(user("u1", "alice"));
+
+		User first = cache.getById("u1", id -> Optional.empty()).orElseThrow();
+		first.setActive(false);
+		first.getProfile().setName("Changed");
+
+		User second = cache.getByUsername("alice", username -> Optional.empty()).orElseThrow();
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.isActive()).isTrue();
+		assertThat(second.getProfile().getName()).isEqualTo("Alice");
+	}
+
+	@Test
+	void appliesFlushedLastLoginToBothLookups() {
+		cache.put(user("u1", "alice"));
+		LocalDateTime lastLogin = LocalDateTime.now();
+
+		cache.lastLoginWritten(Map.of("u1", lastLogin, "u2", lastLogin));
+
+		assertThat(cache.getById("u1", id -> Optional.empty()).orElseThrow().getLastLogin()).isEqualTo(lastLogin);
+		assertThat(cache.getByUsername("alice", username -> Optional.empty()).orElseThrow().getLastLogin())
+				.isEqualTo(lastLogin);
+		assertThat(cache.getById("u2", id -> Optional.empty())).isEmpty();
+	}
+
+	private static User user(String id, String username) {
+		User.Profile profile = new User.Profile();
+		profile.setName("Alice");
+		User user = new User(username, "hash", User.Role.STUDENT, profile);
+		user.setId(id);
+		return user;
+	}
+}